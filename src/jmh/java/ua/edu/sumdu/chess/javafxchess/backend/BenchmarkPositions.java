@@ -0,0 +1,70 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import java.util.Map;
+
+/**
+ * Fixed corpus of benchmark positions. Every position is reached
+ * by a line of moves in long algebraic notation from the start position.
+ */
+public class BenchmarkPositions {
+    /** Benchmark position lines keyed by position name. */
+    public static final Map<String, String> LINES = Map.of(
+        "start", "",
+        "opening", "e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 c2c3 g8f6 d2d4 e5d4 c3d4 c5b4 b1c3",
+        "middlegame", "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6 e1g1 f8e7 f1e1 b7b5 "
+            + "a4b3 d7d6 c2c3 e8g8 h2h3 c6a5 b3c2 c7c5 d2d4 d8c7"
+    );
+
+    /**
+     * Plays the line of the named position on the board.
+     *
+     * @param board The board in the start position.
+     * @param name The name of the position.
+     * @return The color of the side to move after the line.
+     */
+    public static PieceColor play(Board board, String name) {
+        PieceColor color = PieceColor.WHITE;
+
+        for (String notation : getMoves(name)) {
+            Position from = toPosition(notation.substring(0, 2));
+            Move move = board.getLegalMoves(from).stream()
+                .filter(m -> m.toString().equals(notation))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Illegal move " + notation));
+
+            move.execute(board);
+            color = color.getOpposite();
+        }
+
+        return color;
+    }
+
+    /**
+     * Plays the line of the named position in the game.
+     *
+     * @param game The started game.
+     * @param name The name of the position.
+     */
+    public static void play(Game game, String name) {
+        for (String notation : getMoves(name)) {
+            game.makeMove(
+                toPosition(notation.substring(0, 2)),
+                toPosition(notation.substring(2, 4))
+            );
+        }
+    }
+
+    /** Gets the moves of the line of the named position. */
+    private static String[] getMoves(String name) {
+        String line = LINES.get(name);
+        return line.isEmpty() ? new String[0] : line.split(" ");
+    }
+
+    /** Converts an algebraic square name to a position. */
+    private static Position toPosition(String square) {
+        return Position.of('8' - square.charAt(1), square.charAt(0) - 'a');
+    }
+}
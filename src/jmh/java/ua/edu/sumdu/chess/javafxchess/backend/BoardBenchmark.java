@@ -0,0 +1,86 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the board queries used by move generation
+ * and game over detection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({"start", "opening", "middlegame"})
+    private String position;
+
+    private Board board;
+    private PieceColor color;
+    private List<Move> moves;
+    private final int[] moveBuffer = new int[Board.MAX_MOVES];
+    private String fen;
+
+    @Setup
+    public void setUp() {
+        board = new Board();
+        board.initialize();
+        color = BenchmarkPositions.play(board, position);
+        moves = board.getPositions().stream()
+            .filter(pos -> board.getPiece(pos).getColor() == color)
+            .flatMap(pos -> board.getMoves(pos).stream())
+            .toList();
+        fen = board.getFEN();
+    }
+
+    @Benchmark
+    public List<Move> getLegalMoves() {
+        // changes the version of the position, so the moves are generated again
+        board.setHalfmoveClock(board.getHalfmoveClock());
+        return board.getLegalMoves(color);
+    }
+
+    @Benchmark
+    public List<Move> getCachedLegalMoves() {
+        return board.getLegalMoves(color);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return board.generateLegalMoves(color, moveBuffer);
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return board.isInCheck(color);
+    }
+
+    @Benchmark
+    public void isLegal(Blackhole blackhole) {
+        for (Move move : moves) {
+            blackhole.consume(move.isLegal(board));
+        }
+    }
+
+    @Benchmark
+    public Board makeCopy() {
+        return board.makeCopy();
+    }
+
+    @Benchmark
+    public String getFEN() {
+        return new FENGenerator(board).getFEN();
+    }
+
+    @Benchmark
+    public Board fromFEN() {
+        return Board.fromFEN(fen);
+    }
+}
@@ -0,0 +1,29 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of making moves through the game,
+ * including move validation and game over detection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GameBenchmark {
+    @Param({"opening", "middlegame"})
+    private String position;
+
+    /** Plays the whole line of the position from a new game. */
+    @Benchmark
+    public Game makeMove() {
+        Game game = new Game();
+        game.start();
+        BenchmarkPositions.play(game, position);
+        return game;
+    }
+}
@@ -11,4 +11,7 @@ module ua.edu.sumdu.chess.javafxchess {
     exports ua.edu.sumdu.chess.javafxchess.backend.pieces;
     exports ua.edu.sumdu.chess.javafxchess.backend.moves;
     exports ua.edu.sumdu.chess.javafxchess.backend.events;
+    exports ua.edu.sumdu.chess.javafxchess.backend.engine;
+    exports ua.edu.sumdu.chess.javafxchess.backend.uci;
+    exports ua.edu.sumdu.chess.javafxchess.backend.book;
 }
\ No newline at end of file
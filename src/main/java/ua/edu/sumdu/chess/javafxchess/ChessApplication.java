@@ -6,6 +6,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import lombok.Getter;
+import ua.edu.sumdu.chess.javafxchess.backend.Stockfish;
 import ua.edu.sumdu.chess.javafxchess.services.IconManager;
 
 import java.io.IOException;
@@ -21,10 +22,18 @@ public class ChessApplication extends Application {
     /**
      * Initializes the application.
      * Sets the applicationInstance variable
+     * and starts a Stockfish process for engine games.
      */
     @Override
     public void init() {
         applicationInstance = this;
+        Stockfish.warmUp();
+    }
+
+    /** Quits the Stockfish processes when the application exits. */
+    @Override
+    public void stop() {
+        Stockfish.shutdown();
     }
 
     /**
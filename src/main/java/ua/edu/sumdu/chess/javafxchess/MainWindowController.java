@@ -221,7 +221,7 @@ public class MainWindowController {
         int row = (int) (event.getY() / (boardGridPane.getHeight() / 8));
         int col = (int) (event.getX() / (boardGridPane.getWidth() / 8));
 
-        return new Position(row, col);
+        return Position.of(row, col);
     }
 
     /** Handles piece selection, shows legal moves, if any. */
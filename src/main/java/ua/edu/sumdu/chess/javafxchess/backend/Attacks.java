@@ -0,0 +1,303 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+/**
+ * Provides the squares attacked by pieces as bitboards, looked up in
+ * tables precomputed when the class is loaded. Sliding attacks are looked up
+ * by magic bitboards: the occupancy of the squares relevant to a slider
+ * is multiplied by a per-square magic number, and the top bits of the
+ * product index the attack set for that occupancy.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    private static final int[][] KNIGHT_JUMPS = {
+        { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 },
+        { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 }
+    };
+    private static final int[][] KING_STEPS = {
+        { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 },
+        { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 }
+    };
+    private static final int[][] WHITE_PAWN_CAPTURES = { { -1, -1 }, { -1, 1 } };
+    private static final int[][] BLACK_PAWN_CAPTURES = { { 1, -1 }, { 1, 1 } };
+    private static final int[][] ROOK_DIRS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+    private static final int[][] BISHOP_DIRS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+
+    // Magic numbers for squares indexed from a8 (0) to h1 (63)
+    private static final long[] ROOK_MAGICS = {
+        0x01800088E0114000L, 0x0440004820001000L, 0x0C80081000802000L, 0x8880080010000480L,
+        0x1200085060048200L, 0x018004000E000180L, 0x2400024100841008L, 0x808000450001A280L,
+        0x0212800022C00080L, 0x0002004100220082L, 0x8082801000822002L, 0x1002002040081200L,
+        0x0820800400080081L, 0x0801000204010008L, 0x0094801100020080L, 0x2012800080004500L,
+        0x0090908000400029L, 0x0480220042008100L, 0x0008420010842204L, 0x0020808010000800L,
+        0x0604008008000680L, 0x0082008080040002L, 0x0A01808001000200L, 0x1C00060000830264L,
+        0x1085400480008020L, 0x1020100040004020L, 0x8450200500110440L, 0x00C8100100200902L,
+        0x0000080080800400L, 0x0002000200041009L, 0x80A0028400100841L, 0x0004088200006C01L,
+        0x0480082010400040L, 0x0040080020201000L, 0x0408104101002000L, 0x4018001000800880L,
+        0x1484040080800800L, 0x0100800200800400L, 0x8002002182004408L, 0x1120004102000084L,
+        0xC840044080248008L, 0x0010002000414000L, 0x0410008020008010L, 0x4008020100101000L,
+        0x8001014800110024L, 0xA002000400028080L, 0x0432080201040010L, 0x8800010080420004L,
+        0x4100800510204300L, 0x8080812542090200L, 0x010A820012244200L, 0x0000800800100080L,
+        0x9312011020040A00L, 0x2044000480020080L, 0x0100820108100400L, 0x2088210400508200L,
+        0x0005412180083101L, 0x0020290084104001L, 0x0000811088C02202L, 0x0443002110000489L,
+        0x2042001120040802L, 0x0021000802040001L, 0x0008100082410804L, 0x010000610284004EL
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x0208010404040224L, 0x00314102008A0000L, 0xC1B001020A340A00L, 0x0004410021A40020L,
+        0x8012021080400804L, 0x2103100884020002L, 0x2186081404450041L, 0x0109804800A42000L,
+        0x041028421C040412L, 0x000418261ACA0200L, 0x15801088A0810000L, 0x0109AC4101A204C2L,
+        0xA8300404200A0000L, 0x0080511042100000L, 0x10008C008C112800L, 0x8001410400C3850AL,
+        0x8010000690020804L, 0x0408009022008405L, 0x0008024043850011L, 0x8404200804210148L,
+        0x0002000412020000L, 0x0802000101008222L, 0x20010A4200902400L, 0x0422000044540404L,
+        0x1108048488101040L, 0x0050240808886091L, 0x1408020011120208L, 0x0058080010820002L,
+        0x02A1001103004004L, 0x8090020841008E00L, 0x200400A0004A1000L, 0x0000420144808400L,
+        0x004823080810A010L, 0x0044042200210200L, 0x000B040100021806L, 0x00A2004041040101L,
+        0xA190010410020200L, 0x08020401C1080808L, 0x0A040102020C0090L, 0x8401041100088843L,
+        0x130804100A004421L, 0x00D2180208000240L, 0x8162001402020400L, 0x00200C2214000806L,
+        0x0120080100440404L, 0x000925010A002502L, 0x008A0C03040C0600L, 0x0401024096008101L,
+        0x9902090402420488L, 0x9004210402202000L, 0x0834020082210000L, 0x0100090642022500L,
+        0x50C0001002020804L, 0x03424A9049020000L, 0x2005083004008402L, 0x008802008401080CL,
+        0x0000820041444000L, 0x4470024108280201L, 0x004084804C040400L, 0x0040800100460801L,
+        0x0040240008830400L, 0x2020000888100420L, 0x4A402820A5860200L, 0x0084011004010041L
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = getStepAttacks(square, KNIGHT_JUMPS);
+            KING_ATTACKS[square] = getStepAttacks(square, KING_STEPS);
+            PAWN_ATTACKS[PieceColor.WHITE.ordinal()][square]
+                = getStepAttacks(square, WHITE_PAWN_CAPTURES);
+            PAWN_ATTACKS[PieceColor.BLACK.ordinal()][square]
+                = getStepAttacks(square, BLACK_PAWN_CAPTURES);
+            initLines(square, ROOK_DIRS);
+            initLines(square, BISHOP_DIRS);
+        }
+
+        ROOK_TABLE = initSlidingAttacks(
+            ROOK_DIRS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS
+        );
+        BISHOP_TABLE = initSlidingAttacks(
+            BISHOP_DIRS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS
+        );
+    }
+
+    private Attacks() { }
+
+    /**
+     * Gets the squares attacked by a knight.
+     *
+     * @param square The square of the knight.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Gets the squares attacked by a king.
+     *
+     * @param square The square of the king.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Gets the squares attacked by a pawn, i.e. the squares it captures on.
+     *
+     * @param color The color of the pawn.
+     * @param square The square of the pawn.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long pawnAttacks(@NonNull PieceColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Gets the squares attacked by a rook, up to and including
+     * the first occupied square in every direction.
+     *
+     * @param square The square of the rook.
+     * @param occupancy The bitboard of the occupied squares.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long rookAttacks(int square, long occupancy) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) (
+            (occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square] >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a bishop, up to and including
+     * the first occupied square in every direction.
+     *
+     * @param square The square of the bishop.
+     * @param occupancy The bitboard of the occupied squares.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) (
+            (occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square] >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a queen, up to and including
+     * the first occupied square in every direction.
+     *
+     * @param square The square of the queen.
+     * @param occupancy The bitboard of the occupied squares.
+     * @return The bitboard of the attacked squares.
+     */
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Gets the squares strictly between two squares
+     * on the same row, column or diagonal.
+     *
+     * @param from The first square.
+     * @param to The second square.
+     * @return The bitboard of the squares between, or 0 if the squares
+     * are not on the same line or are adjacent.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Gets the whole row, column or diagonal through two squares,
+     * from one edge of the board to the other.
+     *
+     * @param from The first square.
+     * @param to The second square.
+     * @return The bitboard of the line, or 0 if the squares are not on the same line.
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /** Gets the squares one step away from the square by the deltas. */
+    private static long getStepAttacks(int square, int[][] deltas) {
+        long attacks = 0;
+
+        for (int[] delta : deltas) {
+            int row = (square >>> 3) + delta[0];
+            int col = (square & 7) + delta[1];
+
+            if (Board.isOnBoard(row, col)) {
+                attacks |= 1L << (row * 8 + col);
+            }
+        }
+
+        return attacks;
+    }
+
+    /**
+     * Fills the relevant occupancy masks, the index shifts and the table
+     * offsets of the slider for every square, and builds its attack table
+     * by enumerating every subset of every mask.
+     */
+    private static long[] initSlidingAttacks(int[][] dirs, long[] masks, long[] magics,
+                                             int[] shifts, int[] offsets) {
+        int size = 0;
+
+        for (int square = 0; square < 64; square++) {
+            masks[square] = getRelevantOccupancyMask(square, dirs);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long subset = 0;
+
+            // enumerates all subsets of the mask (Carry-Rippler trick)
+            do {
+                table[offsets[square] + (int) (subset * magics[square] >>> shifts[square])]
+                    = getRayAttacks(square, subset, dirs);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+
+        return table;
+    }
+
+    /**
+     * Gets the squares whose occupancy changes the attacks of a slider
+     * on the square: its rays without the last square on the board edge.
+     */
+    private static long getRelevantOccupancyMask(int square, int[][] dirs) {
+        long mask = 0;
+
+        for (int[] dir : dirs) {
+            for (int row = (square >>> 3) + dir[0], col = (square & 7) + dir[1];
+                 Board.isOnBoard(row + dir[0], col + dir[1]);
+                 row += dir[0], col += dir[1]) {
+                mask |= 1L << (row * 8 + col);
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Fills the squares between and the lines from the square
+     * to every square along the rays in the directions.
+     */
+    private static void initLines(int square, int[][] dirs) {
+        for (int[] dir : dirs) {
+            long ray = getRayAttacks(square, 0, new int[][] { dir });
+            long oppositeRay = getRayAttacks(square, 0, new int[][] { { -dir[0], -dir[1] } });
+            long between = 0;
+
+            for (int row = (square >>> 3) + dir[0], col = (square & 7) + dir[1];
+                 Board.isOnBoard(row, col);
+                 row += dir[0], col += dir[1]) {
+                int to = row * 8 + col;
+                BETWEEN[square][to] = between;
+                LINE[square][to] = ray | oppositeRay | 1L << square;
+                between |= 1L << to;
+            }
+        }
+    }
+
+    /** Gets the attacks of a slider on the square by walking its rays. */
+    private static long getRayAttacks(int square, long occupancy, int[][] dirs) {
+        long attacks = 0;
+
+        for (int[] dir : dirs) {
+            for (int row = (square >>> 3) + dir[0], col = (square & 7) + dir[1];
+                 Board.isOnBoard(row, col);
+                 row += dir[0], col += dir[1]) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+            }
+        }
+
+        return attacks;
+    }
+}
@@ -2,28 +2,111 @@ package ua.edu.sumdu.chess.javafxchess.backend;
 
 import lombok.NonNull;
 import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.MoveUndo;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
 import ua.edu.sumdu.chess.javafxchess.backend.pieces.*;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
 
 /**
  * Represents a chess board.
+ * Pieces are stored in a square-indexed array and mirrored in twelve
+ * bitboards (one per color and type) plus occupancy masks, which allow
+ * set-wise queries without scanning all 64 squares.
  */
 public class Board {
-    private final Piece[][] board = new Piece[8][8];
-    @Getter @Setter
-    private Move lastMove;
-    @Getter @Setter
+    /** Castling rights bit of white castling kingside. */
+    public static final int WHITE_KINGSIDE = 1;
+    /** Castling rights bit of white castling queenside. */
+    public static final int WHITE_QUEENSIDE = 2;
+    /** Castling rights bit of black castling kingside. */
+    public static final int BLACK_KINGSIDE = 4;
+    /** Castling rights bit of black castling queenside. */
+    public static final int BLACK_QUEENSIDE = 8;
+    /** All castling rights. */
+    public static final int ALL_CASTLING_RIGHTS = 15;
+    /** The FEN of the standard starting position. */
+    public static final String START_FEN
+        = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    /** The size of a move buffer that can hold all moves of any position. */
+    public static final int MAX_MOVES = 256;
+    /** The material values of the piece types in pawns, indexed by ordinal. */
+    private static final int[] MATERIAL_VALUES = { 1, 3, 3, 5, 9, 0 };
+    /**
+     * The castling rights kept by a move from or to each square:
+     * moving the king or a rook, or capturing a rook, loses the rights.
+     */
+    private static final int[] CASTLING_RIGHTS_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_RIGHTS_KEPT, ALL_CASTLING_RIGHTS);
+        CASTLING_RIGHTS_KEPT[0] &= ~BLACK_QUEENSIDE;
+        CASTLING_RIGHTS_KEPT[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_RIGHTS_KEPT[7] &= ~BLACK_KINGSIDE;
+        CASTLING_RIGHTS_KEPT[56] &= ~WHITE_QUEENSIDE;
+        CASTLING_RIGHTS_KEPT[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_RIGHTS_KEPT[63] &= ~WHITE_KINGSIDE;
+    }
+
+    private final Piece[] squares = new Piece[64];
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorBitboards = new long[2];
+    private long occupied;
+    private final int[] pieceCounts = new int[12];
+    /** The numbers of bishops of each color on light and dark squares. */
+    private final int[] bishopCounts = new int[4];
+    private final int[] material = new int[2];
+    private int lastMove;
+    private PieceColor sideToMove = PieceColor.WHITE;
+    private int castlingRights;
+    /** The column of the pawn that has just made a two-square move, or -1. */
+    private int enPassantFile = -1;
+    @Getter
     private int halfmoveClock;
-    @Getter @Setter
+    @Getter
     private int fullmoveCounter = 1;
+    private long pieceKey;
+    private long[] positionKeyHistory = new long[64];
+    private int positionKeyHistorySize;
+    /** The number of moves made on this board and not taken back. */
     @Getter
-    private final List<String> repetitionFENHistory = new ArrayList<>();
+    private int ply;
+    /** The FEN of the position before the first move made on this board, or null if unknown. */
+    private String startFEN;
+    private int[] undoMoves = new int[64];
+    private int[] undoLastMoves = new int[64];
+    private int[] undoHalfmoveClocks = new int[64];
+    private int[] undoCastlingRights = new int[64];
+    private int[] undoEnPassantFiles = new int[64];
+    private Piece[] undoMovedPieces = new Piece[64];
+    private Piece[] undoCapturedPieces = new Piece[64];
+    /**
+     * The version of the position, changed whenever a move is made or
+     * taken back, or a piece or any other part of the position is set.
+     */
+    @Getter
+    private long version;
+    private final int[][] legalMoveCache = new int[2][];
+    private final int[] legalMoveCacheCounts = new int[2];
+    private final long[] legalMoveCacheVersions = { -1, -1 };
+    /**
+     * The decoded legal moves of each color, the moves from each square
+     * at the index of the square and all moves at index 64.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final List<Move>[][] legalMoveLists = new List[2][];
+    private final long[] legalMoveListVersions = { -1, -1 };
+    private FENGenerator fenGenerator;
+    private String fen;
+    private long fenVersion = -1;
 
     /**
      * Gets the piece at the specified position.
@@ -33,7 +116,7 @@ public class Board {
      */
     public Piece getPiece(@NonNull Position pos) {
         if (isOnBoard(pos)) {
-            return board[pos.row()][pos.col()];
+            return squares[pos.square()];
         }
 
         return null;
@@ -47,7 +130,11 @@ public class Board {
      * @return The piece at the specified row and column, or null if no piece is present.
      */
     public Piece getPiece(int row, int col) {
-        return getPiece(new Position(row, col));
+        if (isOnBoard(row, col)) {
+            return squares[row * 8 + col];
+        }
+
+        return null;
     }
 
     /**
@@ -58,7 +145,8 @@ public class Board {
      */
     public void setPiece(@NonNull Position pos, Piece piece) {
         if (isOnBoard(pos)) {
-            board[pos.row()][pos.col()] = piece;
+            version++;
+            setPiece(pos.square(), piece);
         }
     }
 
@@ -70,7 +158,140 @@ public class Board {
      * @param piece The piece to set.
      */
     public void setPiece(int row, int col, Piece piece) {
-        setPiece(new Position(row, col), piece);
+        if (isOnBoard(row, col)) {
+            version++;
+            setPiece(row * 8 + col, piece);
+        }
+    }
+
+    /**
+     * Sets the piece at the specified square, keeping
+     * the bitboards in sync with the square array.
+     *
+     * @param square The square index.
+     * @param piece The piece to set.
+     */
+    private void setPiece(int square, Piece piece) {
+        long bit = 1L << square;
+        Piece oldPiece = squares[square];
+
+        if (oldPiece != null) {
+            updateMaterial(square, oldPiece, -1);
+            pieceBitboards[getBitboardIndex(oldPiece.getColor(), oldPiece.getType())] &= ~bit;
+            colorBitboards[oldPiece.getColor().ordinal()] &= ~bit;
+            occupied &= ~bit;
+            pieceKey ^= Zobrist.getPieceKey(oldPiece.getColor(), oldPiece.getType(), square);
+        }
+
+        if (piece != null) {
+            updateMaterial(square, piece, 1);
+            pieceBitboards[getBitboardIndex(piece.getColor(), piece.getType())] |= bit;
+            colorBitboards[piece.getColor().ordinal()] |= bit;
+            occupied |= bit;
+            pieceKey ^= Zobrist.getPieceKey(piece.getColor(), piece.getType(), square);
+        }
+
+        squares[square] = piece;
+    }
+
+    /**
+     * Updates the piece counts and the material of the piece's color
+     * when the piece is added to or removed from the square.
+     *
+     * @param square The square index.
+     * @param piece The piece added or removed.
+     * @param delta 1 if the piece is added, -1 if it is removed.
+     */
+    private void updateMaterial(int square, Piece piece, int delta) {
+        int color = piece.getColor().ordinal();
+        int type = piece.getType().ordinal();
+
+        pieceCounts[getBitboardIndex(piece.getColor(), piece.getType())] += delta;
+        material[color] += delta * MATERIAL_VALUES[type];
+
+        if (piece.getType() == PieceType.BISHOP) {
+            bishopCounts[color * 2 + (((square >>> 3) + (square & 7)) & 1)] += delta;
+        }
+    }
+
+    /**
+     * Gets the number of pieces of the specified color and type.
+     *
+     * @param color The color of the pieces.
+     * @param type The type of the pieces.
+     * @return The number of pieces.
+     */
+    public int getPieceCount(@NonNull PieceColor color, @NonNull PieceType type) {
+        return pieceCounts[getBitboardIndex(color, type)];
+    }
+
+    /**
+     * Sets the number of halfmoves since the last capture or pawn move.
+     *
+     * @param halfmoveClock The halfmove clock.
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        version++;
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Sets the number of the full move, which starts at 1
+     * and is incremented after every move of black.
+     *
+     * @param fullmoveCounter The fullmove counter.
+     */
+    public void setFullmoveCounter(int fullmoveCounter) {
+        version++;
+        this.fullmoveCounter = fullmoveCounter;
+    }
+
+    /**
+     * Gets the material of the specified color, counting a pawn as 1,
+     * a bishop and a knight as 3, a rook as 5 and a queen as 9.
+     *
+     * @param color The color of the pieces.
+     * @return The material of the color in pawns.
+     */
+    public int getMaterial(@NonNull PieceColor color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * Gets the material advantage of the specified color over its opponent.
+     *
+     * @param color The color of the pieces.
+     * @return The difference of the materials in pawns, negative if behind.
+     */
+    public int getMaterialBalance(@NonNull PieceColor color) {
+        return material[color.ordinal()] - material[color.getOpposite().ordinal()];
+    }
+
+    /**
+     * Checks if neither side has enough material to checkmate: there are
+     * no pawns, rooks or queens, and either at most one minor piece
+     * or only bishops that all stand on squares of the same color.
+     *
+     * @return True if the material is insufficient, otherwise false.
+     */
+    public boolean isInsufficientMaterial() {
+        int knights = 0;
+
+        for (PieceColor color : PieceColor.values()) {
+            if (getPieceCount(color, PieceType.PAWN) > 0
+                    || getPieceCount(color, PieceType.ROOK) > 0
+                    || getPieceCount(color, PieceType.QUEEN) > 0) {
+                return false;
+            }
+
+            knights += getPieceCount(color, PieceType.KNIGHT);
+        }
+
+        int lightBishops = bishopCounts[0] + bishopCounts[2];
+        int darkBishops = bishopCounts[1] + bishopCounts[3];
+
+        return knights + lightBishops + darkBishops <= 1
+            || (knights == 0 && (lightBishops == 0 || darkBishops == 0));
     }
 
     /**
@@ -80,8 +301,18 @@ public class Board {
      * @return True if the position is on the board, otherwise false.
      */
     public boolean isOnBoard(@NonNull Position pos) {
-        return pos.row() >= 0 && pos.row() < 8 &&
-               pos.col() >= 0 && pos.col() < 8;
+        return pos.isOnBoard();
+    }
+
+    /**
+     * Checks if the row and column are on the board.
+     *
+     * @param row The row to check.
+     * @param col The column to check.
+     * @return True if the row and column are on the board, otherwise false.
+     */
+    public static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
     }
 
     /**
@@ -90,30 +321,60 @@ public class Board {
      * @return A list of positions with pieces on the board.
      */
     public List<Position> getPositions() {
-        List<Position> positions = new ArrayList<>();
+        return toPositions(occupied);
+    }
 
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Position pos = new Position(row, col);
-                if (getPiece(pos) != null) {
-                    positions.add(pos);
-                }
-            }
+    /**
+     * Converts a bitboard to a list of positions of its set bits.
+     *
+     * @param bitboard The bitboard to convert.
+     * @return A list of positions, ordered by square index.
+     */
+    private List<Position> toPositions(long bitboard) {
+        List<Position> positions = new ArrayList<>(Long.bitCount(bitboard));
+
+        while (bitboard != 0) {
+            positions.add(Position.ofSquare(Long.numberOfTrailingZeros(bitboard)));
+            bitboard &= bitboard - 1;
         }
 
         return positions;
     }
 
     /**
-     * Gets a list of positions with pieces of the specified color.
+     * Gets the bitboard of pieces of the specified color and type.
+     *
+     * @param color The color of the pieces.
+     * @param type The type of the pieces.
+     * @return A bitboard with a bit set for every square occupied
+     * by such a piece.
+     */
+    public long getBitboard(@NonNull PieceColor color, @NonNull PieceType type) {
+        return pieceBitboards[getBitboardIndex(color, type)];
+    }
+
+    /**
+     * Gets the bitboard of squares occupied by pieces of the specified color.
      *
      * @param color The color of the pieces.
-     * @return A list of positions with pieces of the specified color.
+     * @return The occupancy bitboard of the color.
      */
-    private List<Position> getPositions(PieceColor color) {
-        return getPositions().stream()
-            .filter(pos -> getPiece(pos).getColor() == color)
-            .toList();
+    public long getOccupancy(@NonNull PieceColor color) {
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * Gets the bitboard of squares occupied by any piece.
+     *
+     * @return The occupancy bitboard of the board.
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /** Gets the index of the bitboard for the specified color and type. */
+    private static int getBitboardIndex(PieceColor color, PieceType type) {
+        return color.ordinal() * PieceType.values().length + type.ordinal();
     }
 
     /**
@@ -139,9 +400,13 @@ public class Board {
      * @return A list of legal moves for the piece at the specified position.
      */
     public List<Move> getLegalMoves(@NonNull Position pos) {
-        return getMoves(pos).stream()
-            .filter(move -> move.isLegal(this))
-            .toList();
+        Piece piece = getPiece(pos);
+
+        if (piece == null) {
+            return Collections.emptyList();
+        }
+
+        return toMoveList(piece.getColor(), pos.square());
     }
 
     /**
@@ -151,10 +416,296 @@ public class Board {
      * @return A list of legal moves for pieces of the specified color.
      */
     public List<Move> getLegalMoves(@NonNull PieceColor color) {
-        return getPositions(color).stream()
-            .map(this::getLegalMoves)
-            .flatMap(Collection::stream)
-            .toList();
+        return toMoveList(color, -1);
+    }
+
+    /**
+     * Gets an iterator over the legal moves of pieces of the specified color,
+     * which generates the moves lazily: captures first, then promotions,
+     * then quiet moves. The board must not be changed while iterating.
+     *
+     * @param color The color of the pieces.
+     * @return An iterator over the legal moves in the {@link PackedMove} encoding.
+     */
+    public PrimitiveIterator.OfInt legalMoveIterator(@NonNull PieceColor color) {
+        return new LegalMoveIterator(this, color);
+    }
+
+    /**
+     * Checks if pieces of the specified color have any legal move,
+     * stopping at the first legal move found.
+     *
+     * @param color The color of the pieces.
+     * @return True if there is a legal move, otherwise false.
+     */
+    public boolean hasAnyLegalMove(@NonNull PieceColor color) {
+        if (legalMoveCacheVersions[color.ordinal()] == version) {
+            return legalMoveCacheCounts[color.ordinal()] > 0;
+        }
+
+        return legalMoveIterator(color).hasNext();
+    }
+
+    /**
+     * Generates the legal moves of the specified color into the cache,
+     * unless they were generated for the current version of the position.
+     *
+     * @return The number of legal moves in the cache.
+     */
+    private int getCachedLegalMoveCount(PieceColor color) {
+        int index = color.ordinal();
+
+        if (legalMoveCacheVersions[index] != version) {
+            if (legalMoveCache[index] == null) {
+                legalMoveCache[index] = new int[MAX_MOVES];
+            }
+
+            legalMoveCacheCounts[index] = generateLegalMoves(color, legalMoveCache[index]);
+            legalMoveCacheVersions[index] = version;
+        }
+
+        return legalMoveCacheCounts[index];
+    }
+
+    /**
+     * Gets the decoded legal moves from the specified square, or all moves
+     * if it is -1, with one promotion move per square, whose piece type is
+     * chosen later. The lists are decoded once for every version of the
+     * position and cannot be modified.
+     */
+    private List<Move> toMoveList(PieceColor color, int from) {
+        int index = color.ordinal();
+
+        if (legalMoveListVersions[index] != version) {
+            decodeLegalMoves(color);
+        }
+
+        List<Move> moveList = legalMoveLists[index][from == -1 ? 64 : from];
+        return moveList == null ? Collections.emptyList() : moveList;
+    }
+
+    /** Decodes the cached legal moves of the specified color into lists by square. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void decodeLegalMoves(PieceColor color) {
+        int index = color.ordinal();
+        int count = getCachedLegalMoveCount(color);
+        int[] moves = legalMoveCache[index];
+        List<Move>[] moveLists = new List[65];
+        List<Move> allMoves = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            PieceType promotionPieceType = PackedMove.getPromotionPieceType(moves[i]);
+
+            if (promotionPieceType == null || promotionPieceType == PieceType.QUEEN) {
+                int from = PackedMove.getFrom(moves[i]);
+                Move move = PackedMove.toMove(moves[i]);
+
+                if (moveLists[from] == null) {
+                    moveLists[from] = new ArrayList<>(Piece.MAX_MOVES);
+                }
+
+                moveLists[from].add(move);
+                allMoves.add(move);
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            if (moveLists[square] != null) {
+                moveLists[square] = Collections.unmodifiableList(moveLists[square]);
+            }
+        }
+
+        moveLists[64] = Collections.unmodifiableList(allMoves);
+        legalMoveLists[index] = moveLists;
+        legalMoveListVersions[index] = version;
+    }
+
+    /**
+     * Generates the moves of pieces of the specified color into the buffer,
+     * without checking if they leave the king in check.
+     * A promotion is generated once for every promotion piece type.
+     *
+     * @param color The color of the pieces.
+     * @param moves The move buffer of at least {@link #MAX_MOVES} elements.
+     * @return The number of moves written to the buffer.
+     */
+    public int generateMoves(@NonNull PieceColor color, int[] moves) {
+        int count = 0;
+
+        for (long pieces = colorBitboards[color.ordinal()]; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            count = squares[square].generateMoves(this, square, -1L, moves, count);
+        }
+
+        return count;
+    }
+
+    /**
+     * Generates the legal moves of pieces of the specified color into the buffer.
+     * A promotion is generated once for every promotion piece type.
+     * The pieces giving check and the pinned pieces are found once,
+     * and the moves of the other pieces are restricted to the squares
+     * that block or capture the checking piece and to the lines of their pins,
+     * so that no move has to be made to check if it leaves the king in check.
+     *
+     * @param color The color of the pieces.
+     * @param moves The move buffer of at least {@link #MAX_MOVES} elements.
+     * @return The number of moves written to the buffer.
+     */
+    public int generateLegalMoves(@NonNull PieceColor color, int[] moves) {
+        long king = getBitboard(color, PieceType.KING);
+
+        if (king == 0) {
+            return generateMoves(color, moves);
+        }
+
+        int kingSquare = Long.numberOfTrailingZeros(king);
+        PieceColor opponentColor = color.getOpposite();
+        long checkers = getAttackers(kingSquare, opponentColor, occupied);
+        long pinned = getPinnedPieces(kingSquare, color);
+        int count = 0;
+
+        // only the king can move out of a double check
+        if (Long.bitCount(checkers) < 2) {
+            long checkMask = checkers == 0
+                ? -1L
+                : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+
+            for (long pieces = colorBitboards[color.ordinal()] & ~king;
+                 pieces != 0;
+                 pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                long targets = checkMask;
+
+                if ((pinned >>> square & 1) != 0) {
+                    targets &= Attacks.line(kingSquare, square);
+                }
+
+                count = squares[square].generateMoves(this, square, targets, moves, count);
+            }
+        }
+
+        count = squares[kingSquare].generateMoves(this, kingSquare, -1L, moves, count);
+
+        // en passant and king moves are checked separately
+        int legalCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            boolean isLegal;
+
+            if (PackedMove.getFrom(move) == kingSquare) {
+                isLegal = isLegalKingMove(move, opponentColor, checkers != 0);
+            } else if (PackedMove.getFlag(move) == PackedMove.EN_PASSANT) {
+                isLegal = isLegalEnPassant(move, kingSquare, opponentColor, checkers);
+            } else {
+                isLegal = true;
+            }
+
+            if (isLegal) {
+                moves[legalCount++] = move;
+            }
+        }
+
+        return legalCount;
+    }
+
+    /**
+     * Checks if the king move does not go to an attacked square,
+     * looking through the king so that it cannot step back along
+     * the line of a slider. A castling move is also illegal if the king
+     * is in check or passes through an attacked square.
+     */
+    boolean isLegalKingMove(int move, PieceColor opponentColor, boolean isInCheck) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+
+        if (PackedMove.getFlag(move) == PackedMove.CASTLING) {
+            return !isInCheck
+                && getAttackers((from + to) / 2, opponentColor, occupied) == 0
+                && getAttackers(to, opponentColor, occupied) == 0;
+        }
+
+        return getAttackers(to, opponentColor, occupied & ~(1L << from)) == 0;
+    }
+
+    /**
+     * Checks if the en passant capture resolves a check, if any, and does
+     * not expose the king to a slider. Both pawns leave their squares,
+     * so the capture can discover a check along a row or diagonal.
+     */
+    boolean isLegalEnPassant(int move, int kingSquare,
+                             PieceColor opponentColor, long checkers) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        long capturedBit = 1L << ((from & ~7) | (to & 7));
+
+        if (checkers != 0 && (checkers & capturedBit) == 0
+                && (Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers))
+                    >>> to & 1) == 0) {
+            return false;
+        }
+
+        long occupancy = (occupied & ~(1L << from) & ~capturedBit) | 1L << to;
+        long queens = getBitboard(opponentColor, PieceType.QUEEN);
+
+        return (Attacks.rookAttacks(kingSquare, occupancy)
+                & (getBitboard(opponentColor, PieceType.ROOK) | queens)) == 0
+            && (Attacks.bishopAttacks(kingSquare, occupancy)
+                & (getBitboard(opponentColor, PieceType.BISHOP) | queens)) == 0;
+    }
+
+    /**
+     * Gets the pieces of the specified color that are pinned to their king,
+     * i.e. the only piece between the king and an opponent's slider.
+     */
+    long getPinnedPieces(int kingSquare, PieceColor color) {
+        PieceColor opponentColor = color.getOpposite();
+        long opponentPieces = colorBitboards[opponentColor.ordinal()];
+        long queens = getBitboard(opponentColor, PieceType.QUEEN);
+        long snipers = (Attacks.rookAttacks(kingSquare, opponentPieces)
+                & (getBitboard(opponentColor, PieceType.ROOK) | queens))
+            | (Attacks.bishopAttacks(kingSquare, opponentPieces)
+                & (getBitboard(opponentColor, PieceType.BISHOP) | queens));
+        long pinned = 0;
+
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers))
+                & occupied;
+
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & colorBitboards[color.ordinal()];
+            }
+        }
+
+        return pinned;
+    }
+
+    /**
+     * Checks if the move does not leave the king of the moving side in check.
+     * A castling move is also illegal if the king is in check
+     * or passes through an attacked square.
+     *
+     * @param move The move in the {@link PackedMove} encoding.
+     * @return True if the move is legal, otherwise false.
+     */
+    public boolean isLegal(int move) {
+        int from = PackedMove.getFrom(move);
+        PieceColor color = squares[from].getColor();
+
+        if (PackedMove.getFlag(move) == PackedMove.CASTLING) {
+            int passedSquare = (from + PackedMove.getTo(move)) / 2;
+
+            if (isSquareAttacked(from, color.getOpposite())
+                    || isSquareAttacked(passedSquare, color.getOpposite())) {
+                return false;
+            }
+        }
+
+        makeMove(move);
+        boolean isLegal = !isInCheck(color);
+        unmakeMove();
+        return isLegal;
     }
 
     /**
@@ -164,12 +715,274 @@ public class Board {
      * @return True if the specified color is in check, otherwise false.
      */
     public boolean isInCheck(@NonNull PieceColor color) {
-        PieceColor opponentColor = color == PieceColor.WHITE
-            ? PieceColor.BLACK
-            : PieceColor.WHITE;
+        long king = getBitboard(color, PieceType.KING);
+
+        if (king == 0) {
+            return false;
+        }
+
+        return isSquareAttacked(Long.numberOfTrailingZeros(king), color.getOpposite());
+    }
+
+    /**
+     * Checks if the position is attacked by any piece of the specified color.
+     * Looks up the attacks of every piece type from the position
+     * and intersects them with the pieces of that type.
+     *
+     * @param pos The position to check.
+     * @param color The color of the attacking pieces.
+     * @return True if the position is attacked, otherwise false.
+     */
+    public boolean isSquareAttacked(@NonNull Position pos, @NonNull PieceColor color) {
+        return isSquareAttacked(pos.square(), color);
+    }
+
+    /** Checks if the square is attacked by any piece of the specified color. */
+    private boolean isSquareAttacked(int square, PieceColor color) {
+        return getAttackers(square, color, occupied) != 0;
+    }
+
+    /**
+     * Gets the pieces of the specified color that attack the square,
+     * by looking up the attacks of every piece type from the square
+     * and intersecting them with the pieces of that type.
+     *
+     * @param square The square index.
+     * @param color The color of the attacking pieces.
+     * @param occupancy The occupied squares that block sliders.
+     * @return The bitboard of the attacking pieces.
+     */
+    long getAttackers(int square, PieceColor color, long occupancy) {
+        long queens = getBitboard(color, PieceType.QUEEN);
+
+        return (Attacks.pawnAttacks(color.getOpposite(), square)
+                & getBitboard(color, PieceType.PAWN))
+            | (Attacks.knightAttacks(square) & getBitboard(color, PieceType.KNIGHT))
+            | (Attacks.kingAttacks(square) & getBitboard(color, PieceType.KING))
+            | (Attacks.bishopAttacks(square, occupancy)
+                & (getBitboard(color, PieceType.BISHOP) | queens))
+            | (Attacks.rookAttacks(square, occupancy)
+                & (getBitboard(color, PieceType.ROOK) | queens));
+    }
+
+    /** Checks if a piece of the specified color and type is at the square. */
+    private boolean isPieceAt(int row, int col, PieceColor color, PieceType type) {
+        Piece piece = getPiece(row, col);
+        return piece != null && piece.getColor() == color && piece.getType() == type;
+    }
+
+    /**
+     * Gets the color of the side to move, which is
+     * the opponent of the side that made the last move.
+     *
+     * @return The color of the side to move.
+     */
+    public PieceColor getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Sets the color of the side to move.
+     *
+     * @param sideToMove The color of the side to move.
+     */
+    public void setSideToMove(@NonNull PieceColor sideToMove) {
+        version++;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Gets the castling rights, which are lost when the king
+     * or the rook moves, or the rook is captured.
+     *
+     * @return The castling rights bit mask.
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Sets the castling rights.
+     *
+     * @param castlingRights The castling rights bit mask.
+     */
+    public void setCastlingRights(int castlingRights) {
+        version++;
+        this.castlingRights = castlingRights & ALL_CASTLING_RIGHTS;
+    }
+
+    /**
+     * Gets the column of the pawn that has just made a two-square move,
+     * whether or not it can be captured en passant.
+     *
+     * @return The column of the pawn, or -1 if there is none.
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Sets the column of the pawn that has just made a two-square move.
+     *
+     * @param enPassantFile The column of the pawn, or -1 if there is none.
+     */
+    public void setEnPassantFile(int enPassantFile) {
+        version++;
+        this.enPassantFile = enPassantFile;
+    }
+
+    /**
+     * Gets the column of the pawn that can be captured en passant,
+     * i.e. the pawn has just made a two-square move
+     * and stands next to a pawn of the side to move.
+     *
+     * @return The column of the pawn, or -1 if there is none.
+     */
+    public int getEnPassantCol() {
+        if (enPassantFile == -1) {
+            return -1;
+        }
+
+        int row = sideToMove == PieceColor.WHITE ? 3 : 4;
+
+        if (isPieceAt(row, enPassantFile - 1, sideToMove, PieceType.PAWN)
+                || isPieceAt(row, enPassantFile + 1, sideToMove, PieceType.PAWN)) {
+            return enPassantFile;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the Zobrist key of the position. The piece part of the key
+     * is updated incrementally whenever a piece is set.
+     *
+     * @return The 64-bit key of the position.
+     */
+    public long getZobristKey() {
+        long key = pieceKey ^ Zobrist.getCastlingKey(getCastlingRights());
+
+        int enPassantCol = getEnPassantCol();
+        if (enPassantCol != -1) {
+            key ^= Zobrist.getEnPassantKey(enPassantCol);
+        }
+
+        if (getSideToMove() == PieceColor.BLACK) {
+            key ^= Zobrist.getSideKey();
+        }
+
+        return key;
+    }
+
+    /**
+     * Adds the key of the current position to the position history.
+     * Called when a move is executed, before the board is changed.
+     */
+    private void pushPositionKey() {
+        if (positionKeyHistorySize == positionKeyHistory.length) {
+            positionKeyHistory = Arrays.copyOf(positionKeyHistory, positionKeyHistorySize * 2);
+        }
+
+        positionKeyHistory[positionKeyHistorySize++] = getZobristKey();
+    }
+
+    /**
+     * Removes the last key from the position history.
+     * Called when a move is taken back.
+     */
+    private void popPositionKey() {
+        positionKeyHistorySize--;
+    }
 
-        return getPositions(opponentColor).stream()
-            .anyMatch(pos -> getPiece(pos).canCaptureKing(this, pos));
+    /**
+     * Counts how many times the current position has occurred,
+     * including the current occurrence. Only positions since the last
+     * capture or pawn move with the same side to move are compared.
+     *
+     * @return The number of occurrences of the current position.
+     */
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int count = 1;
+        int oldestIndex = Math.max(positionKeyHistorySize - halfmoveClock, 0);
+
+        for (int i = positionKeyHistorySize - 2; i >= oldestIndex; i -= 2) {
+            if (positionKeyHistory[i] == key) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree of the specified depth
+     * (performance test), which is used to verify move generation.
+     * Every promotion piece type is counted as a separate move.
+     *
+     * @param color The color of the side to move.
+     * @param depth The depth of the move tree, in plies.
+     * @return The number of leaf nodes.
+     */
+    public long perft(@NonNull PieceColor color, int depth) {
+        return perft(color, depth, new int[Math.max(depth, 1)][MAX_MOVES]);
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree of the specified depth
+     * separately for every legal move of the root position.
+     *
+     * @param color The color of the side to move.
+     * @param depth The depth of the move tree, in plies.
+     * @return The number of leaf nodes for every root move,
+     * keyed by the move in long algebraic notation.
+     */
+    public Map<String, Long> divide(@NonNull PieceColor color, int depth) {
+        Map<String, Long> nodesByMove = new LinkedHashMap<>();
+
+        if (depth > 0) {
+            int[][] moveBuffers = new int[depth][MAX_MOVES];
+            int[] moves = moveBuffers[depth - 1];
+            int count = generateLegalMoves(color, moves);
+
+            for (int i = 0; i < count; i++) {
+                makeMove(moves[i]);
+                nodesByMove.put(
+                    PackedMove.toString(moves[i]),
+                    perft(color.getOpposite(), depth - 1, moveBuffers)
+                );
+                unmakeMove();
+            }
+        }
+
+        return nodesByMove;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree, generating
+     * the moves of every depth into its own buffer.
+     */
+    private long perft(PieceColor color, int depth, int[][] moveBuffers) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        int[] moves = moveBuffers[depth - 1];
+        int count = generateLegalMoves(color, moves);
+
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+
+        for (int i = 0; i < count; i++) {
+            makeMove(moves[i]);
+            nodes += perft(color.getOpposite(), depth - 1, moveBuffers);
+            unmakeMove();
+        }
+
+        return nodes;
     }
 
     /**
@@ -184,14 +997,14 @@ public class Board {
                 row = 7;
             }
 
-            board[row][0] = new Rook(color);
-            board[row][1] = new Knight(color);
-            board[row][2] = new Bishop(color);
-            board[row][3] = new Queen(color);
-            board[row][4] = new King(color);
-            board[row][5] = new Bishop(color);
-            board[row][6] = new Knight(color);
-            board[row][7] = new Rook(color);
+            setPiece(row, 0, Piece.of(color, PieceType.ROOK));
+            setPiece(row, 1, Piece.of(color, PieceType.KNIGHT));
+            setPiece(row, 2, Piece.of(color, PieceType.BISHOP));
+            setPiece(row, 3, Piece.of(color, PieceType.QUEEN));
+            setPiece(row, 4, Piece.of(color, PieceType.KING));
+            setPiece(row, 5, Piece.of(color, PieceType.BISHOP));
+            setPiece(row, 6, Piece.of(color, PieceType.KNIGHT));
+            setPiece(row, 7, Piece.of(color, PieceType.ROOK));
 
             if (color == PieceColor.BLACK) {
                 row = 1;
@@ -200,31 +1013,268 @@ public class Board {
             }
 
             for (int i = 0; i < 8; i++) {
-                board[row][i] = new Pawn(color);
+                setPiece(row, i, Piece.of(color, PieceType.PAWN));
             }
         }
 
-        repetitionFENHistory.add(getFENWithoutCounters());
+        castlingRights = ALL_CASTLING_RIGHTS;
+        startFEN = START_FEN;
     }
 
-    /** Gets the FEN representation of the board. */
+    /**
+     * Gets the FEN representation of the board, which is generated
+     * once for every version of the position.
+     *
+     * @return The FEN string.
+     */
     public String getFEN() {
-        return new FENGenerator(this).getFEN();
+        if (fenVersion != version) {
+            if (fenGenerator == null) {
+                fenGenerator = new FENGenerator(this);
+            }
+
+            fen = fenGenerator.getFEN();
+            fenVersion = version;
+        }
+
+        return fen;
+    }
+
+    /**
+     * Creates a board from a FEN string.
+     *
+     * @param fen The FEN string.
+     * @return The board in the position of the FEN string.
+     * @throws IllegalArgumentException If the FEN string is malformed.
+     */
+    public static Board fromFEN(@NonNull String fen) {
+        Board board = FENParser.parse(fen);
+        board.startFEN = board.getFEN();
+        return board;
+    }
+
+    /**
+     * Gets the last move made on the board.
+     *
+     * @return The last move, or null if no move has been made.
+     */
+    public Move getLastMove() {
+        return PackedMove.toMove(lastMove);
     }
 
-    /** Gets the FEN representation of the board without counters. */
-    public String getFENWithoutCounters() {
-        String FEN = getFEN();
-        int secondLastSpaceIndex = FEN.lastIndexOf(' ', FEN.lastIndexOf(' ') - 1);
-        return FEN.substring(0, secondLastSpaceIndex);
+    /**
+     * Gets the last move made on the board in the {@link PackedMove} encoding.
+     *
+     * @return The last move, or {@link PackedMove#NONE} if no move has been made.
+     */
+    public int getLastPackedMove() {
+        return lastMove;
     }
 
-    /** Creates a deep copy of the board. */
+    /**
+     * Sets the last move made on the board. The side to move, the castling
+     * rights and the en passant column are set separately.
+     *
+     * @param lastMove The last move, or null if no move has been made.
+     */
+    public void setLastMove(Move lastMove) {
+        version++;
+        this.lastMove = lastMove == null ? PackedMove.NONE : lastMove.encode();
+    }
+
+    /**
+     * Makes a move on the board. The state needed to take the move back
+     * is kept on an internal stack of primitive arrays,
+     * so making and taking back moves does not allocate.
+     *
+     * @param move The move in the {@link PackedMove} encoding.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int flag = PackedMove.getFlag(move);
+        Piece movedPiece = squares[from];
+        int capturedSquare = flag == PackedMove.EN_PASSANT ? (from & ~7) | (to & 7) : to;
+        Piece capturedPiece = squares[capturedSquare];
+
+        if (ply == undoMoves.length) {
+            growUndoStack();
+        }
+
+        undoMoves[ply] = move;
+        undoLastMoves[ply] = lastMove;
+        undoHalfmoveClocks[ply] = halfmoveClock;
+        undoCastlingRights[ply] = castlingRights;
+        undoEnPassantFiles[ply] = enPassantFile;
+        undoMovedPieces[ply] = movedPiece;
+        undoCapturedPieces[ply] = capturedPiece;
+        ply++;
+        version++;
+
+        pushPositionKey();
+        lastMove = move;
+        sideToMove = movedPiece.getColor().getOpposite();
+        castlingRights &= CASTLING_RIGHTS_KEPT[from] & CASTLING_RIGHTS_KEPT[to];
+        enPassantFile = movedPiece.getType() == PieceType.PAWN && Math.abs(to - from) == 16
+            ? to & 7
+            : -1;
+
+        if (movedPiece.getColor() == PieceColor.BLACK) {
+            fullmoveCounter++;
+        }
+
+        if (movedPiece.getType() == PieceType.PAWN || capturedPiece != null) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+
+        if (flag == PackedMove.EN_PASSANT) {
+            setPiece(capturedSquare, null);
+        }
+
+        setPiece(from, null);
+
+        if (flag == PackedMove.PROMOTION) {
+            setPiece(to, Piece.of(movedPiece.getColor(), PackedMove.getPromotionPieceType(move)));
+        } else {
+            setPiece(to, movedPiece);
+        }
+
+        if (flag == PackedMove.CASTLING) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            Piece rook = squares[rookFrom];
+
+            setPiece(rookFrom, null);
+            setPiece(rookTo, rook);
+        }
+    }
+
+    /**
+     * Takes back the last move made on the board,
+     * restoring the board to the state it had before the move.
+     */
+    public void unmakeMove() {
+        ply--;
+        version++;
+        int move = undoMoves[ply];
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int flag = PackedMove.getFlag(move);
+        Piece movedPiece = undoMovedPieces[ply];
+        Piece capturedPiece = undoCapturedPieces[ply];
+
+        if (flag == PackedMove.CASTLING) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            Piece rook = squares[rookTo];
+
+            setPiece(rookTo, null);
+            setPiece(rookFrom, rook);
+        }
+
+        if (flag == PackedMove.EN_PASSANT) {
+            setPiece(to, null);
+            setPiece((from & ~7) | (to & 7), capturedPiece);
+        } else {
+            setPiece(to, capturedPiece);
+        }
+
+        setPiece(from, movedPiece);
+        undoMovedPieces[ply] = null;
+        undoCapturedPieces[ply] = null;
+
+        if (movedPiece.getColor() == PieceColor.BLACK) {
+            fullmoveCounter--;
+        }
+
+        lastMove = undoLastMoves[ply];
+        sideToMove = movedPiece.getColor();
+        castlingRights = undoCastlingRights[ply];
+        enPassantFile = undoEnPassantFiles[ply];
+        halfmoveClock = undoHalfmoveClocks[ply];
+        popPositionKey();
+    }
+
+    /**
+     * Gets a move made on this board and not taken back.
+     *
+     * @param index The index of the move, from 0 for the first move
+     * to {@link #getPly()} - 1 for the last move.
+     * @return The move in the {@link PackedMove} encoding.
+     * @throws IndexOutOfBoundsException If there is no move with the index.
+     */
+    public int getMadeMove(int index) {
+        Objects.checkIndex(index, ply);
+        return undoMoves[index];
+    }
+
+    /**
+     * Gets the FEN of the position before the first move made on this board,
+     * so that the current position can be reached by replaying the made moves.
+     * It is known for boards set up by {@link #initialize} or {@link #fromFEN}
+     * and changed only by moves since then.
+     *
+     * @return The starting FEN, or null if it is unknown.
+     */
+    public String getStartFEN() {
+        return ply == 0 ? getFEN() : startFEN;
+    }
+
+    /**
+     * Takes back a move executed on this board.
+     * Moves must be taken back in reverse order of execution.
+     *
+     * @param undo The record returned by {@link Move#execute}.
+     * @throws IllegalStateException If the move is not the last move made.
+     */
+    public void undo(@NonNull MoveUndo undo) {
+        if (undo.getPly() != ply) {
+            throw new IllegalStateException(
+                "Move " + undo.getMove() + " is not the last move made"
+            );
+        }
+
+        unmakeMove();
+    }
+
+    /** Doubles the capacity of the undo stack. */
+    private void growUndoStack() {
+        int capacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoLastMoves = Arrays.copyOf(undoLastMoves, capacity);
+        undoHalfmoveClocks = Arrays.copyOf(undoHalfmoveClocks, capacity);
+        undoCastlingRights = Arrays.copyOf(undoCastlingRights, capacity);
+        undoEnPassantFiles = Arrays.copyOf(undoEnPassantFiles, capacity);
+        undoMovedPieces = Arrays.copyOf(undoMovedPieces, capacity);
+        undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, capacity);
+    }
+
+    /**
+     * Creates a copy of the board, including the last move, the move
+     * counters and the position history. Pieces are immutable and shared,
+     * so the squares are copied as a plain array.
+     * Moves made before the copy cannot be taken back on the copy.
+     */
     public Board makeCopy() {
         Board board = new Board();
-        for (Position pos : getPositions()) {
-            board.setPiece(pos, getPiece(pos).makeCopy());
-        }
+        System.arraycopy(squares, 0, board.squares, 0, squares.length);
+        System.arraycopy(pieceBitboards, 0, board.pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(colorBitboards, 0, board.colorBitboards, 0, colorBitboards.length);
+        board.occupied = occupied;
+        System.arraycopy(pieceCounts, 0, board.pieceCounts, 0, pieceCounts.length);
+        System.arraycopy(bishopCounts, 0, board.bishopCounts, 0, bishopCounts.length);
+        System.arraycopy(material, 0, board.material, 0, material.length);
+        board.pieceKey = pieceKey;
+        board.lastMove = lastMove;
+        board.sideToMove = sideToMove;
+        board.castlingRights = castlingRights;
+        board.enPassantFile = enPassantFile;
+        board.halfmoveClock = halfmoveClock;
+        board.fullmoveCounter = fullmoveCounter;
+        board.positionKeyHistory = Arrays.copyOf(positionKeyHistory, positionKeyHistory.length);
+        board.positionKeyHistorySize = positionKeyHistorySize;
         return board;
     }
 }
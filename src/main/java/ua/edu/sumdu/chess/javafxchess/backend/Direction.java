@@ -20,6 +20,8 @@ public class Direction {
 
     private final int rowDelta;
     private final int colDelta;
+    /** The change in square index, valid if the move stays on the board. */
+    private final int squareDelta;
 
     /**
      * Constructs a Direction with the specified row and column deltas.
@@ -30,5 +32,6 @@ public class Direction {
     public Direction(int rowDelta, int colDelta) {
         this.rowDelta = rowDelta;
         this.colDelta = colDelta;
+        this.squareDelta = rowDelta * 8 + colDelta;
     }
 }
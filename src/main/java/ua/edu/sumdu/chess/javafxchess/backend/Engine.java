@@ -0,0 +1,57 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents a chess engine that plays moves in engine games.
+ */
+public interface Engine {
+    /** Starts the engine. */
+    void start() throws IOException;
+
+    /** Stops the engine. */
+    void stop();
+
+    /**
+     * Gets the best move for the current position on the board,
+     * thinking for a time that depends on the engine alone.
+     *
+     * @param board The chess board.
+     * @return A CompletableFuture that will be completed with the best move
+     * in long algebraic notation, e.g. e2e4 or e7e8q.
+     */
+    default CompletableFuture<String> getBestMove(Board board) {
+        return getBestMove(board, null);
+    }
+
+    /**
+     * Gets the best move for the current position on the board,
+     * allocating the time to think from the game clock.
+     * The board is only read before this method returns,
+     * so it can be changed while the engine is thinking.
+     *
+     * @param board The chess board.
+     * @param clock The game clock, or null if the game has no time limit.
+     * @return A CompletableFuture that will be completed with the best move
+     * in long algebraic notation, e.g. e2e4 or e7e8q.
+     */
+    CompletableFuture<String> getBestMove(Board board, GameClock clock);
+
+    /**
+     * Starts thinking about the position of the board on the opponent's time,
+     * after the engine has made its move. The engine may search the reply
+     * it expects, so that the next {@link #getBestMove} returns sooner
+     * if the opponent plays it. Engines that do not ponder ignore this.
+     *
+     * @param board The chess board after the engine's move.
+     * @param clock The game clock, or null if the game has no time limit.
+     */
+    default void ponder(Board board, GameClock clock) { }
+
+    /**
+     * Stops thinking on the opponent's time, e.g. when the engine's
+     * next move is taken from an opening book instead of a search.
+     */
+    default void stopPondering() { }
+}
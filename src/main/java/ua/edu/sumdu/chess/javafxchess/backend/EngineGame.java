@@ -3,13 +3,19 @@ package ua.edu.sumdu.chess.javafxchess.backend;
 import eventemitter.EventEmitter;
 import javafx.application.Platform;
 import lombok.NonNull;
+import lombok.Setter;
+import ua.edu.sumdu.chess.javafxchess.backend.book.BookSelection;
+import ua.edu.sumdu.chess.javafxchess.backend.book.PolyglotBook;
+import ua.edu.sumdu.chess.javafxchess.backend.engine.NativeEngine;
 import ua.edu.sumdu.chess.javafxchess.backend.events.StockfishErrorEvent;
 import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
 import ua.edu.sumdu.chess.javafxchess.backend.pieces.*;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -17,33 +23,84 @@ import java.util.function.Consumer;
  */
 public class EngineGame extends Game {
     private final Player humanPlayer;
-    private final Stockfish stockfish;
+    private final Engine engine;
+    /** The opening book consulted before the engine, or null if none. */
+    @Setter
+    private PolyglotBook openingBook = PolyglotBook.getDefault();
+    /** The way the engine chooses among the book moves. */
+    @Setter
+    @NonNull
+    private BookSelection bookSelection = BookSelection.WEIGHTED_RANDOM;
     private final EventEmitter<StockfishErrorEvent> stockfishErrorEventEmitter
         = new EventEmitter<>();
 
     /**
      * Constructs an EngineGame with the specified parameters.
+     * Uses Stockfish if its executable is bundled and runs on this machine,
+     * otherwise the built-in engine.
      *
      * @param humanPlayerPieceColor The color of the human player's pieces.
-     * @param engineSkillLevel The skill level of the Stockfish engine.
+     * @param engineSkillLevel The skill level of the engine (0 to 20).
      */
     public EngineGame(@NonNull PieceColor humanPlayerPieceColor,
                       int engineSkillLevel) {
+        this(humanPlayerPieceColor, engineSkillLevel, 0);
+    }
+
+    /**
+     * Constructs an EngineGame with a time limit for each player.
+     * The engine allocates its time from the clock.
+     *
+     * @param humanPlayerPieceColor The color of the human player's pieces.
+     * @param engineSkillLevel The skill level of the engine (0 to 20).
+     * @param timeInSeconds The time limit for each player in seconds,
+     * or 0 for no time limit.
+     */
+    public EngineGame(@NonNull PieceColor humanPlayerPieceColor,
+                      int engineSkillLevel, int timeInSeconds) {
+        this(humanPlayerPieceColor, Stockfish.isAvailable()
+            ? new Stockfish(engineSkillLevel)
+            : new NativeEngine(engineSkillLevel), timeInSeconds);
+    }
+
+    /**
+     * Constructs an EngineGame played against the specified engine.
+     *
+     * @param humanPlayerPieceColor The color of the human player's pieces.
+     * @param engine The engine to play against.
+     */
+    public EngineGame(@NonNull PieceColor humanPlayerPieceColor,
+                      @NonNull Engine engine) {
+        this(humanPlayerPieceColor, engine, 0);
+    }
+
+    /**
+     * Constructs an EngineGame played against the specified engine
+     * with a time limit for each player.
+     *
+     * @param humanPlayerPieceColor The color of the human player's pieces.
+     * @param engine The engine to play against.
+     * @param timeInSeconds The time limit for each player in seconds,
+     * or 0 for no time limit.
+     */
+    public EngineGame(@NonNull PieceColor humanPlayerPieceColor,
+                      @NonNull Engine engine, int timeInSeconds) {
+        super(timeInSeconds);
         humanPlayer = humanPlayerPieceColor == PieceColor.WHITE
             ? playerW
             : playerB;
-        stockfish = new Stockfish(engineSkillLevel);
+        this.engine = engine;
     }
 
     /**
-     * Starts the game, initializing the board and starting the Stockfish engine.
+     * Starts the game, initializing the board and starting the engine.
      */
     @Override
     public void start() {
         super.start();
 
         try {
-            stockfish.start();
+            engine.start();
         } catch (IOException e) {
             emitStockfishErrorEvent();
         }
@@ -54,13 +111,14 @@ public class EngineGame extends Game {
     }
 
     /**
-     * Stops the game and shuts down the Stockfish engine.
+     * Stops the game and shuts down the engine,
+     * stopping the search of the engine if it is thinking.
      */
     @Override
     public void stop() {
         if (isGameInProgress) {
             super.stop();
-            stockfish.stop();
+            engine.stop();
         }
     }
 
@@ -73,6 +131,10 @@ public class EngineGame extends Game {
         }
     }
 
+    /**
+     * Makes the human player's move, after which the engine replies.
+     * A pondering engine that expected the move replies sooner.
+     */
     @Override
     public void makeMove(Position from, Position to,
                          PieceType promotionPieceType) {
@@ -98,25 +160,78 @@ public class EngineGame extends Game {
         super.resign();
     }
 
-    /** Gets move from Stockfish and makes it. */
+    /**
+     * Gets move from the opening book or else from the engine and makes it,
+     * then lets the engine ponder on the human player's time.
+     */
     private void makeEngineMove() {
-        stockfish.getBestMove(getBoard().getFEN())
+        String bookMove = getBookMove();
+        CompletableFuture<String> bestMove;
+
+        if (bookMove != null) {
+            engine.stopPondering();
+            bestMove = CompletableFuture.completedFuture(bookMove);
+        } else {
+            bestMove = engine.getBestMove(getBoard(), getClock());
+        }
+
+        bestMove
             .thenAccept(strMove -> {
                 Position from = stockfishCoordToPosition(strMove.substring(0, 2));
                 Position to = stockfishCoordToPosition(strMove.substring(2, 4));
                 PieceType promotionPieceType = getStockfishPromotionPieceType(strMove);
 
-                Platform.runLater(() -> super.makeMove(from, to, promotionPieceType));
+                Platform.runLater(() -> {
+                    super.makeMove(from, to, promotionPieceType);
+
+                    if (isGameInProgress) {
+                        engine.ponder(getBoard(), getClock());
+                    }
+                });
             })
             .exceptionally(ex -> {
-                Platform.runLater(this::emitStockfishErrorEvent);
+                Platform.runLater(() -> {
+                    // a search cancelled by stopping the game is not an error
+                    if (isGameInProgress) {
+                        emitStockfishErrorEvent();
+                    }
+                });
                 return null;
             });
     }
 
+    /**
+     * Gets a move for the current position from the opening book.
+     *
+     * @return The move in long algebraic notation,
+     * or null if there is no book or the position is not in it.
+     */
+    private String getBookMove() {
+        if (openingBook == null) {
+            return null;
+        }
+
+        int move = openingBook.getMove(getBoard(), bookSelection);
+        return move == PackedMove.NONE ? null : PackedMove.toString(move);
+    }
+
+    /**
+     * Gets the state of the game clock for the engine.
+     *
+     * @return The time left of both players, or null if the game has no time limit.
+     */
+    private GameClock getClock() {
+        if (getTimeInSeconds() == 0) {
+            return null;
+        }
+
+        return new GameClock(playerW.getTimeLeft() * 1000L,
+            playerB.getTimeLeft() * 1000L, 0, 0, 0);
+    }
+
     /** Converts Stockfish string coordinate to Position */
     private Position stockfishCoordToPosition(String coord) {
-        return new Position(
+        return Position.of(
             '8' - coord.charAt(1),
             coord.charAt(0) - 'a'
         );
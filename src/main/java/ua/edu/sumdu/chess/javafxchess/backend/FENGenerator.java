@@ -1,16 +1,23 @@
 package ua.edu.sumdu.chess.javafxchess.backend;
 
 import lombok.NonNull;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
 import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
 import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
 
 /**
  * Generates FEN strings for the current state of a chess board.
+ * The string is written into a reusable buffer, with piece symbols
+ * looked up by color and type.
  */
 public class FENGenerator {
+    /** The FEN symbols of the pieces, indexed by color and type ordinals. */
+    static final char[][] PIECE_SYMBOLS = {
+        { 'P', 'B', 'N', 'R', 'Q', 'K' },
+        { 'p', 'b', 'n', 'r', 'q', 'k' }
+    };
+
     private final Board board;
+    private final StringBuilder fen = new StringBuilder(90);
 
     /**
      * Constructs a FENGenerator for the specified chess board.
@@ -27,128 +34,78 @@ public class FENGenerator {
      * @return The FEN string.
      */
     public String getFEN() {
-        return getPiecePlacement() + ' '
-            + getSideToMove() + ' '
-            + getCastlingAbility() + ' '
-            + getEnPassantTargetSquare() + ' '
-            + board.getHalfmoveClock() + ' '
-            + board.getFullmoveCounter();
-    }
+        fen.setLength(0);
+
+        appendPiecePlacement();
+        fen.append(' ').append(board.getSideToMove() == PieceColor.WHITE ? 'w' : 'b');
+        fen.append(' ');
+        appendCastlingAbility();
+        fen.append(' ');
+        appendEnPassantTargetSquare();
+        fen.append(' ').append(board.getHalfmoveClock());
+        fen.append(' ').append(board.getFullmoveCounter());
 
-    /** Generates the piece placement part of the FEN string. */
-    private String getPiecePlacement() {
-        StringBuilder fen = new StringBuilder();
-        int emptySquares = 0;
+        return fen.toString();
+    }
 
+    /** Appends the piece placement part of the FEN string. */
+    private void appendPiecePlacement() {
         for (int row = 0; row < 8; row++) {
+            int emptySquares = 0;
+
             for (int col = 0; col < 8; col++) {
-                String symbol = getPieceSymbol(row, col);
-
-                if (symbol != null) {
-                    if (emptySquares != 0) {
-                        fen.append(emptySquares);
-                        emptySquares = 0;
-                    }
-                    fen.append(symbol);
-                } else {
+                Piece piece = board.getPiece(row, col);
+
+                if (piece == null) {
                     emptySquares++;
+                    continue;
+                }
 
-                    if (col == 7) {
-                        fen.append(emptySquares);
-                        emptySquares = 0;
-                    }
+                if (emptySquares != 0) {
+                    fen.append((char) ('0' + emptySquares));
+                    emptySquares = 0;
                 }
+
+                fen.append(PIECE_SYMBOLS[piece.getColor().ordinal()][piece.getType().ordinal()]);
+            }
+
+            if (emptySquares != 0) {
+                fen.append((char) ('0' + emptySquares));
             }
 
             if (row != 7) {
                 fen.append('/');
             }
         }
-
-        return fen.toString();
-    }
-
-    /** Gets the symbol representing a piece at a specific position. */
-    private String getPieceSymbol(int row, int col) {
-        Piece piece = board.getPiece(row, col);
-
-        if (piece == null) {
-            return null;
-        }
-
-        String symbol = piece.getType() == PieceType.KNIGHT
-            ? "n" : piece.getType().name().substring(0, 1).toLowerCase();
-
-        return piece.getColor() == PieceColor.WHITE
-            ? symbol.toUpperCase()
-            : symbol;
-    }
-
-    /** Determines the side to move in the FEN string. */
-    private char getSideToMove() {
-        if (board.getLastMove() != null
-            && board.getPiece(board.getLastMove().getTo())
-                .getColor() == PieceColor.WHITE) {
-            return 'b';
-        } else {
-            return 'w';
-        }
     }
 
-    /** Gets the castling ability part of the FEN string. */
-    private String getCastlingAbility() {
-        String castlingAbility = getCastlingAbility(PieceColor.WHITE)
-            + getCastlingAbility(PieceColor.BLACK);
+    /** Appends the castling ability part of the FEN string, in the KQkq order. */
+    private void appendCastlingAbility() {
+        int castlingRights = board.getCastlingRights();
 
-        return castlingAbility.isEmpty()
-            ? "-"
-            : castlingAbility;
-    }
-
-    /** Gets the castling ability for a specific color. */
-    private String getCastlingAbility(PieceColor color) {
-        StringBuilder castlingAbility = new StringBuilder();
-        boolean isWhite = color == PieceColor.WHITE;
-        int row = isWhite ? 7 : 0;
-
-        if (pieceHasNotMoved(row, 4)) {
-            if (pieceHasNotMoved(row, 0)) {
-                castlingAbility.append('q');
-            }
-            if (pieceHasNotMoved(row, 7)) {
-                castlingAbility.append('k');
-            }
+        if (castlingRights == 0) {
+            fen.append('-');
+            return;
         }
 
-        return isWhite
-            ? castlingAbility.toString().toUpperCase()
-            : castlingAbility.toString();
-    }
-
-    /** Checks if a piece has moved from its starting position. */
-    private boolean pieceHasNotMoved(int row, int col) {
-        Piece piece = board.getPiece(row, col);
-        return piece != null && !piece.isHasMoved();
+        if ((castlingRights & Board.WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & Board.WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & Board.BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & Board.BLACK_QUEENSIDE) != 0) fen.append('q');
     }
 
-    /** Gets the en passant target square part of the FEN string. */
-    private String getEnPassantTargetSquare() {
-        Move lastMove = board.getLastMove();
-
-        if (lastMove != null &&
-            board.getPiece(lastMove.getTo()).getType() == PieceType.PAWN &&
-            Math.abs(lastMove.getTo().row() - lastMove.getFrom().row()) == 2) {
-
-            char file = (char) ('a' + lastMove.getTo().col());
-            String rank = String.valueOf(
-                lastMove.getTo().row() - lastMove.getFrom().row() > 0
-                    ? 7 - lastMove.getFrom().row()
-                    : 9 - lastMove.getFrom().row()
-            );
+    /**
+     * Appends the en passant target square part of the FEN string,
+     * the square passed by a pawn that has just made a two-square move.
+     */
+    private void appendEnPassantTargetSquare() {
+        int enPassantFile = board.getEnPassantFile();
 
-            return file + rank;
+        if (enPassantFile == -1) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassantFile))
+                .append(board.getSideToMove() == PieceColor.WHITE ? '6' : '3');
         }
-
-        return "-";
     }
 }
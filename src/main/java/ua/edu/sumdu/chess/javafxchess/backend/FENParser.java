@@ -0,0 +1,205 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+/**
+ * Parses FEN strings into chess boards. The string is scanned
+ * character by character, without splitting it into fields.
+ */
+public final class FENParser {
+    private final String fen;
+    private int index;
+
+    /** Constructs a parser of the specified FEN string. */
+    private FENParser(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * Parses a FEN string. The halfmove clock and the fullmove counter
+     * are optional and default to 0 and 1.
+     *
+     * @param fen The FEN string.
+     * @return The board in the position of the FEN string.
+     * @throws IllegalArgumentException If the FEN string is malformed.
+     */
+    public static Board parse(@NonNull String fen) {
+        return new FENParser(fen).parse();
+    }
+
+    /** Parses the fields of the FEN string in order. */
+    private Board parse() {
+        Board board = new Board();
+
+        parsePiecePlacement(board);
+        skipSpace();
+        PieceColor sideToMove = parseSideToMove();
+        skipSpace();
+        parseCastlingAbility(board);
+        skipSpace();
+        board.setSideToMove(sideToMove);
+        parseEnPassantTargetSquare(board, sideToMove);
+
+        if (index < fen.length()) {
+            skipSpace();
+            board.setHalfmoveClock(parseNumber());
+            skipSpace();
+            board.setFullmoveCounter(parseNumber());
+        }
+
+        if (index != fen.length()) {
+            throw error("unexpected characters");
+        }
+
+        return board;
+    }
+
+    /** Parses the piece placement field. */
+    private void parsePiecePlacement(Board board) {
+        int row = 0;
+        int col = 0;
+
+        for (; index < fen.length() && fen.charAt(index) != ' '; index++) {
+            char symbol = fen.charAt(index);
+
+            if (symbol == '/') {
+                if (col != 8 || ++row > 7) {
+                    throw error("wrong row length");
+                }
+                col = 0;
+            } else if (symbol >= '1' && symbol <= '8') {
+                col += symbol - '0';
+            } else {
+                if (col > 7) {
+                    throw error("wrong row length");
+                }
+
+                board.setPiece(row, col++, getPiece(symbol));
+            }
+        }
+
+        if (row != 7 || col != 8) {
+            throw error("wrong number of squares");
+        }
+    }
+
+    /** Parses the side to move field. */
+    private PieceColor parseSideToMove() {
+        char symbol = nextChar();
+
+        return switch (symbol) {
+            case 'w' -> PieceColor.WHITE;
+            case 'b' -> PieceColor.BLACK;
+            default -> throw error("wrong side to move " + symbol);
+        };
+    }
+
+    /** Parses the castling ability field. */
+    private void parseCastlingAbility(Board board) {
+        if (peekChar() == '-') {
+            index++;
+            return;
+        }
+
+        int castlingRights = 0;
+
+        while (index < fen.length() && fen.charAt(index) != ' ') {
+            char right = fen.charAt(index++);
+            castlingRights |= switch (right) {
+                case 'K' -> Board.WHITE_KINGSIDE;
+                case 'Q' -> Board.WHITE_QUEENSIDE;
+                case 'k' -> Board.BLACK_KINGSIDE;
+                case 'q' -> Board.BLACK_QUEENSIDE;
+                default -> throw error("wrong castling right " + right);
+            };
+        }
+
+        board.setCastlingRights(castlingRights);
+    }
+
+    /** Parses the en passant target square field. */
+    private void parseEnPassantTargetSquare(Board board, PieceColor sideToMove) {
+        if (peekChar() == '-') {
+            index++;
+            return;
+        }
+
+        int col = nextChar() - 'a';
+        int row = '8' - nextChar();
+        int expectedRow = sideToMove == PieceColor.WHITE ? 2 : 5;
+
+        if (col < 0 || col > 7 || row != expectedRow) {
+            throw error("wrong en passant target square");
+        }
+
+        board.setEnPassantFile(col);
+    }
+
+    /** Parses a non-negative decimal number. */
+    private int parseNumber() {
+        int start = index;
+        int number = 0;
+
+        while (index < fen.length() && Character.isDigit(fen.charAt(index))) {
+            number = number * 10 + (fen.charAt(index++) - '0');
+        }
+
+        if (index == start) {
+            throw error("number expected");
+        }
+
+        return number;
+    }
+
+    /** Skips the space separating two fields. */
+    private void skipSpace() {
+        if (nextChar() != ' ') {
+            throw error("space expected");
+        }
+    }
+
+    /** Gets the next character without consuming it. */
+    private char peekChar() {
+        if (index >= fen.length()) {
+            throw error("unexpected end");
+        }
+
+        return fen.charAt(index);
+    }
+
+    /** Gets and consumes the next character. */
+    private char nextChar() {
+        char c = peekChar();
+        index++;
+        return c;
+    }
+
+    /** Gets the piece of the FEN symbol. */
+    private Piece getPiece(char symbol) {
+        PieceColor color = Character.isUpperCase(symbol)
+            ? PieceColor.WHITE
+            : PieceColor.BLACK;
+
+        PieceType type = switch (Character.toLowerCase(symbol)) {
+            case 'p' -> PieceType.PAWN;
+            case 'n' -> PieceType.KNIGHT;
+            case 'b' -> PieceType.BISHOP;
+            case 'r' -> PieceType.ROOK;
+            case 'q' -> PieceType.QUEEN;
+            case 'k' -> PieceType.KING;
+            default -> throw error("wrong piece symbol " + symbol);
+        };
+
+        return Piece.of(color, type);
+    }
+
+    /** Creates an exception for a malformed FEN string. */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(
+            "Malformed FEN at " + index + ", " + message + ": " + fen
+        );
+    }
+}
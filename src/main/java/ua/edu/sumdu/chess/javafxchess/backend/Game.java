@@ -135,7 +135,7 @@ public class Game {
             Move foundMove = findMoveByPositions(from, to);
 
             if (foundMove != null) {
-                checkForPromotionMove(foundMove, promotionPieceType);
+                foundMove = checkForPromotionMove(foundMove, promotionPieceType);
 
                 foundMove.execute(board);
                 emitMoveMadeEvent();
@@ -190,17 +190,20 @@ public class Game {
     }
 
     /**
-     * Checks if the move is a promotion move and sets the
-     * promotion piece type if one was passed.
+     * Checks if the move is a promotion move and creates the promotion
+     * to the piece type if one was passed that a pawn can be promoted to.
      *
      * @param move The move to check.
      * @param promotionPieceType The type of piece to promote to, optional.
+     * @return The move to make.
      */
-    private void checkForPromotionMove(Move move, PieceType promotionPieceType) {
-        if (promotionPieceType != null
-                && move instanceof PromotionMove) {
-            ((PromotionMove) move).setPromotionPieceType(promotionPieceType);
+    private Move checkForPromotionMove(Move move, PieceType promotionPieceType) {
+        if (move instanceof PromotionMove
+                && PromotionMove.PIECE_TYPES.contains(promotionPieceType)) {
+            return new PromotionMove(move.getFrom(), move.getTo(), promotionPieceType);
         }
+
+        return move;
     }
 
     /**
@@ -220,7 +223,7 @@ public class Game {
     private boolean checkForGameOver() {
         PieceColor opponentColor = getOpponent().getPieceColor();
 
-        if (board.getLegalMoves(opponentColor).isEmpty()) {
+        if (!board.hasAnyLegalMove(opponentColor)) {
             if (board.isInCheck(opponentColor)) {
                 emitWinEvent(WinReason.CHECKMATE);
             } else {
@@ -245,14 +248,7 @@ public class Game {
      * @return true if game is drawn by threefold repetition, false otherwise.
      */
     private boolean isThreefoldRepetition() {
-        if (!board.getRepetitionFENHistory().isEmpty()) {
-            String lastFEN = board.getRepetitionFENHistory().getLast();
-            return board.getRepetitionFENHistory()
-                .stream()
-                .filter(lastFEN::equals)
-                .count() == 3;
-        }
-        return false;
+        return board.getRepetitionCount() >= 3;
     }
 
     /**
@@ -261,30 +257,7 @@ public class Game {
      * @return true if game is drawn by insufficient material, false otherwise.
      */
     private boolean isInsufficientMaterial() {
-        if (board.getPositions().size() == 2) {
-            // Both Sides have a bare King
-            return true;
-        } else if (board.getPositions().size() == 3) {
-            // One Side has a King and a Minor Piece against a bare King
-            return board.getPositions()
-                .stream()
-                .map(board::getPiece)
-                .anyMatch(p ->
-                    p.getType() == PieceType.BISHOP
-                    || p.getType() == PieceType.KNIGHT
-                );
-        } else if (board.getPositions().size() == 4) {
-            // Both Sides have a King and a Bishop, the Bishops being the same Color
-            List<Position> bishopsPos = board.getPositions()
-                .stream()
-                .filter(p -> board.getPiece(p).getType() == PieceType.BISHOP)
-                .toList();
-
-            return bishopsPos.size() == 2
-                && (bishopsPos.get(0).row() + bishopsPos.get(0).col()) % 2 ==
-                   (bishopsPos.get(1).row() + bishopsPos.get(1).col()) % 2;
-        }
-        return false;
+        return board.isInsufficientMaterial();
     }
 
     /** Registers a callback for move made events. */
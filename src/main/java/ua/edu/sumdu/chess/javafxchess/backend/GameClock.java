@@ -0,0 +1,66 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.Getter;
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+/**
+ * Represents the state of the game clock when an engine is asked
+ * for a move, which the engine uses to decide how long to think.
+ * All times are in milliseconds.
+ */
+@Getter
+public class GameClock {
+    /**
+     * The time an engine keeps in reserve on every move, in milliseconds.
+     * It covers the one-second resolution of the game clock
+     * and the delay before the engine's move is made on the board.
+     */
+    public static final long MOVE_OVERHEAD = 1000;
+
+    private final long whiteTime;
+    private final long blackTime;
+    private final long whiteIncrement;
+    private final long blackIncrement;
+    /** The number of moves until the next time control, or 0 if the rest of the game. */
+    private final int movesToGo;
+
+    /**
+     * Constructs a GameClock.
+     *
+     * @param whiteTime The time left for white.
+     * @param blackTime The time left for black.
+     * @param whiteIncrement The time added to white's clock after each move.
+     * @param blackIncrement The time added to black's clock after each move.
+     * @param movesToGo The number of moves until the next time control,
+     * or 0 if the time left is for the rest of the game.
+     */
+    public GameClock(long whiteTime, long blackTime,
+                     long whiteIncrement, long blackIncrement, int movesToGo) {
+        this.whiteTime = Math.max(whiteTime, 0);
+        this.blackTime = Math.max(blackTime, 0);
+        this.whiteIncrement = Math.max(whiteIncrement, 0);
+        this.blackIncrement = Math.max(blackIncrement, 0);
+        this.movesToGo = Math.max(movesToGo, 0);
+    }
+
+    /**
+     * Gets the time left for the specified color.
+     *
+     * @param color The color of the player.
+     * @return The time left, in milliseconds.
+     */
+    public long getTime(@NonNull PieceColor color) {
+        return color == PieceColor.WHITE ? whiteTime : blackTime;
+    }
+
+    /**
+     * Gets the increment of the specified color.
+     *
+     * @param color The color of the player.
+     * @return The time added after each move, in milliseconds.
+     */
+    public long getIncrement(@NonNull PieceColor color) {
+        return color == PieceColor.WHITE ? whiteIncrement : blackIncrement;
+    }
+}
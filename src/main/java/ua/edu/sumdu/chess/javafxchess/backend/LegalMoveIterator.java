@@ -0,0 +1,194 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Iterates over the legal moves of one side in the {@link PackedMove} encoding,
+ * generating them lazily one piece at a time and in stages: captures
+ * (including en passant and capturing promotions) first, then promotions,
+ * then quiet moves. A caller that only needs the first legal move stops
+ * after generating the moves of a single piece.
+ * The board must not be changed while the iterator is in use.
+ */
+final class LegalMoveIterator implements PrimitiveIterator.OfInt {
+    /** The stages of move generation, in the order they are generated. */
+    private enum Stage { CAPTURES, PROMOTIONS, QUIETS, DONE }
+
+    private static final long WHITE_PROMOTION_ROW = 0xFF00L;
+    private static final long BLACK_PROMOTION_ROW = 0xFFL << 48;
+
+    private final Board board;
+    private final PieceColor color;
+    private final PieceColor opponentColor;
+    private final int kingSquare;
+    private final long checkers;
+    private final long pinned;
+    private final long checkMask;
+    private final int[] buffer = new int[Piece.MAX_MOVES];
+    private Stage stage = Stage.CAPTURES;
+    private long pieces;
+    private int bufferSize;
+    private int bufferIndex;
+    private int nextMove = PackedMove.NONE;
+
+    /**
+     * Constructs an iterator over the legal moves of the specified color.
+     * The pieces giving check and the pinned pieces are found once,
+     * as in {@link Board#generateLegalMoves}.
+     *
+     * @param board The chessboard.
+     * @param color The color of the pieces.
+     */
+    LegalMoveIterator(Board board, PieceColor color) {
+        this.board = board;
+        this.color = color;
+        this.opponentColor = color.getOpposite();
+
+        long king = board.getBitboard(color, PieceType.KING);
+
+        if (king == 0) {
+            kingSquare = -1;
+            checkers = 0;
+            pinned = 0;
+            checkMask = -1L;
+        } else {
+            kingSquare = Long.numberOfTrailingZeros(king);
+            checkers = board.getAttackers(kingSquare, opponentColor, board.getOccupancy());
+            pinned = board.getPinnedPieces(kingSquare, color);
+            checkMask = checkers == 0
+                ? -1L
+                : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+
+        pieces = getStagePieces();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextMove == PackedMove.NONE) {
+            nextMove = findNextMove();
+        }
+
+        return nextMove != PackedMove.NONE;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        int move = nextMove;
+        nextMove = PackedMove.NONE;
+        return move;
+    }
+
+    /**
+     * Finds the next legal move of the current stage, generating the moves
+     * of the next piece or moving to the next stage when needed.
+     *
+     * @return The next legal move, or {@link PackedMove#NONE} if there are no more.
+     */
+    private int findNextMove() {
+        while (stage != Stage.DONE) {
+            while (bufferIndex < bufferSize) {
+                int move = buffer[bufferIndex++];
+
+                if (getStage(move) == stage && isLegal(move)) {
+                    return move;
+                }
+            }
+
+            if (pieces == 0) {
+                stage = Stage.values()[stage.ordinal() + 1];
+                pieces = getStagePieces();
+                continue;
+            }
+
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            bufferSize = board.getPiece(square >>> 3, square & 7)
+                .generateMoves(board, square, getTargets(square), buffer, 0);
+            bufferIndex = 0;
+        }
+
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Gets the pieces that can have moves in the current stage.
+     * Only the king can move out of a double check,
+     * and only pawns on the last row but one can promote.
+     */
+    private long getStagePieces() {
+        long stagePieces = switch (stage) {
+            case CAPTURES, QUIETS -> board.getOccupancy(color);
+            case PROMOTIONS -> board.getBitboard(color, PieceType.PAWN)
+                & (color == PieceColor.WHITE ? WHITE_PROMOTION_ROW : BLACK_PROMOTION_ROW);
+            case DONE -> 0;
+        };
+
+        if (Long.bitCount(checkers) >= 2) {
+            stagePieces &= 1L << kingSquare;
+        }
+
+        return stagePieces;
+    }
+
+    /**
+     * Gets the squares the moves of the piece on the square may end on
+     * in the current stage, restricted to the squares that resolve a check
+     * and to the line of a pin for every piece but the king.
+     */
+    private long getTargets(int square) {
+        long targets = stage == Stage.CAPTURES
+            ? board.getOccupancy(opponentColor)
+            : ~board.getOccupancy();
+
+        if (square == kingSquare) {
+            return targets;
+        }
+
+        targets &= checkMask;
+
+        if ((pinned >>> square & 1) != 0) {
+            targets &= Attacks.line(kingSquare, square);
+        }
+
+        return targets;
+    }
+
+    /**
+     * Gets the stage a move belongs to. Pieces may generate moves
+     * regardless of the targets, such as castling and en passant,
+     * so moves are only accepted in their own stage.
+     */
+    private Stage getStage(int move) {
+        int flag = PackedMove.getFlag(move);
+
+        if (flag == PackedMove.EN_PASSANT
+                || (board.getOccupancy(opponentColor) >>> PackedMove.getTo(move) & 1) != 0) {
+            return Stage.CAPTURES;
+        }
+
+        return flag == PackedMove.PROMOTION ? Stage.PROMOTIONS : Stage.QUIETS;
+    }
+
+    /** Checks the king moves and en passant captures, the other moves are legal. */
+    private boolean isLegal(int move) {
+        if (PackedMove.getFrom(move) == kingSquare) {
+            return board.isLegalKingMove(move, opponentColor, checkers != 0);
+        } else if (PackedMove.getFlag(move) == PackedMove.EN_PASSANT) {
+            return kingSquare == -1
+                || board.isLegalEnPassant(move, kingSquare, opponentColor, checkers);
+        }
+
+        return true;
+    }
+}
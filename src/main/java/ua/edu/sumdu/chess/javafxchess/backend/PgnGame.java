@@ -0,0 +1,33 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a game read from a PGN file: its tag pairs,
+ * the moves of the main line in standard algebraic notation
+ * and the result, e.g. 1-0, 0-1, 1/2-1/2 or * if unknown.
+ */
+@Getter
+public class PgnGame {
+    private final Map<String, String> tags;
+    private final List<String> moves;
+    private final String result;
+
+    /**
+     * Constructs a PgnGame.
+     *
+     * @param tags The tag pairs of the game.
+     * @param moves The moves of the main line in standard algebraic notation.
+     * @param result The result of the game.
+     */
+    public PgnGame(@NonNull Map<String, String> tags, @NonNull List<String> moves,
+                   @NonNull String result) {
+        this.tags = tags;
+        this.moves = moves;
+        this.result = result;
+    }
+}
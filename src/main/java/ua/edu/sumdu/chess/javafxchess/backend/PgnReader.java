@@ -0,0 +1,207 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games from a PGN stream one at a time, so that files of any size
+ * can be processed in constant memory. Only the main line is kept:
+ * comments, variations, numeric annotation glyphs
+ * and move numbers are skipped.
+ */
+public class PgnReader implements Closeable {
+    private static final String[] RESULTS = { "1-0", "0-1", "1/2-1/2", "*" };
+
+    private final Reader reader;
+    /** The character read ahead, or -2 if none. */
+    private int pending = -2;
+
+    /**
+     * Constructs a PgnReader.
+     *
+     * @param reader The reader of the PGN text.
+     */
+    public PgnReader(@NonNull Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next game. A game ends with its result, or with the tags
+     * of the next game or the end of the stream if the result is missing,
+     * in which case the result is taken from the Result tag.
+     *
+     * @return The next game, or null at the end of the stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new HashMap<>();
+        List<String> moves = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        int c;
+
+        while ((c = read()) != -1) {
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+
+            switch (c) {
+                case '[' -> {
+                    if (!moves.isEmpty()) {
+                        pending = c;
+                        return createGame(tags, moves, null);
+                    }
+                    readTag(tags);
+                }
+                case '{' -> skipUntil('}');
+                case ';', '%' -> skipUntil('\n');
+                case '(' -> skipVariation();
+                case '$' -> readToken(token);
+                default -> {
+                    pending = c;
+                    readToken(token);
+                    String move = stripMoveNumber(token);
+
+                    if (isResult(move)) {
+                        return createGame(tags, moves, move);
+                    } else if (!move.isEmpty()) {
+                        moves.add(move);
+                    }
+                }
+            }
+        }
+
+        return tags.isEmpty() && moves.isEmpty() ? null : createGame(tags, moves, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /** Creates a game, taking a missing result from the Result tag. */
+    private static PgnGame createGame(Map<String, String> tags, List<String> moves, String result) {
+        if (result == null) {
+            result = tags.getOrDefault("Result", "*");
+        }
+
+        return new PgnGame(tags, moves, result);
+    }
+
+    /** Reads a tag pair such as {@code [Event "Casual game"]} after its opening bracket. */
+    private void readTag(Map<String, String> tags) throws IOException {
+        StringBuilder name = new StringBuilder();
+        StringBuilder value = new StringBuilder();
+        boolean isInValue = false;
+        int c;
+
+        while ((c = read()) != -1 && c != '\n') {
+            if (isInValue) {
+                if (c == '\\') {
+                    c = read();
+                } else if (c == '"') {
+                    isInValue = false;
+                    continue;
+                }
+                value.append((char) c);
+            } else if (c == '"') {
+                isInValue = true;
+            } else if (c == ']') {
+                break;
+            } else if (!Character.isWhitespace(c)) {
+                name.append((char) c);
+            }
+        }
+
+        tags.put(name.toString(), value.toString());
+    }
+
+    /** Reads a token until whitespace or a character that starts another element. */
+    private void readToken(StringBuilder token) throws IOException {
+        token.setLength(0);
+        int c;
+
+        while ((c = read()) != -1) {
+            if (Character.isWhitespace(c) || "{}()[];$".indexOf(c) != -1) {
+                pending = c;
+                break;
+            }
+            token.append((char) c);
+        }
+    }
+
+    /** Skips a variation, which may contain nested variations and comments. */
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipUntil('}');
+            }
+        }
+    }
+
+    /** Skips characters up to and including the specified one. */
+    private void skipUntil(char end) throws IOException {
+        int c;
+
+        do {
+            c = read();
+        } while (c != -1 && c != end);
+    }
+
+    /**
+     * Removes a leading move number such as {@code 12.} or {@code 12...}
+     * from the token, which may be followed by a move without a space.
+     */
+    private static String stripMoveNumber(StringBuilder token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+
+        if (i == 0 || i == token.length() || token.charAt(i) != '.') {
+            return token.toString();
+        }
+
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+
+        return token.substring(i);
+    }
+
+    /** Checks if the token is a game termination marker. */
+    private static boolean isResult(String token) {
+        for (String result : RESULTS) {
+            if (result.equals(token)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** Reads the next character, starting with the one read ahead. */
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+
+        return reader.read();
+    }
+}
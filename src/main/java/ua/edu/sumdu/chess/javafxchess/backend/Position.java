@@ -2,18 +2,113 @@ package ua.edu.sumdu.chess.javafxchess.backend;
 
 /**
  * Represents a position on the chessboard.
+ * Positions are interned: there is one instance for each of the 64 squares
+ * and one for all positions off the board, so creating positions and
+ * adding directions to them never allocates, and positions can be
+ * compared by identity.
  */
-public record Position(int row, int col) {
+public final class Position {
+    /** The position returned for coordinates off the board. */
+    public static final Position OFF_BOARD = new Position(-1, -1);
+
+    private static final Position[] SQUARES = new Position[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new Position(square >>> 3, square & 7);
+        }
+    }
+
+    private final int row;
+    private final int col;
+
+    /** Constructs a position with the specified row and column. */
+    private Position(int row, int col) {
+        this.row = row;
+        this.col = col;
+    }
+
+    /**
+     * Gets the position with the specified row and column.
+     *
+     * @param row The row of the position.
+     * @param col The column of the position.
+     * @return The position, or {@link #OFF_BOARD} if it is not on the board.
+     */
+    public static Position of(int row, int col) {
+        if (Board.isOnBoard(row, col)) {
+            return SQUARES[row * 8 + col];
+        }
+
+        return OFF_BOARD;
+    }
+
+    /**
+     * Gets the position of the specified square index.
+     *
+     * @param square The square index, from 0 (a8) to 63 (h1).
+     * @return The position of the square.
+     */
+    public static Position ofSquare(int square) {
+        return SQUARES[square];
+    }
+
+    /** Gets the row of the position, -1 if it is off the board. */
+    public int row() {
+        return row;
+    }
+
+    /** Gets the column of the position, -1 if it is off the board. */
+    public int col() {
+        return col;
+    }
+
+    /**
+     * Gets the square index of the position, which is also the
+     * bit index of the position in a bitboard.
+     *
+     * @return The square index, from 0 (a8) to 63 (h1),
+     * or -1 if the position is off the board.
+     */
+    public int square() {
+        return this == OFF_BOARD ? -1 : row * 8 + col;
+    }
+
+    /**
+     * Checks if the position is on the board.
+     *
+     * @return True if the position is on the board, otherwise false.
+     */
+    public boolean isOnBoard() {
+        return this != OFF_BOARD;
+    }
+
     /**
      * Adds a direction to the current position and returns the new position.
      *
      * @param dir The direction to add.
-     * @return The new position after adding the direction.
+     * @return The new position after adding the direction,
+     * or {@link #OFF_BOARD} if it leaves the board.
      */
     public Position add(Direction dir) {
-        return new Position(
-            this.row + dir.getRowDelta(),
-            this.col + dir.getColDelta()
-        );
+        if (this == OFF_BOARD) {
+            return OFF_BOARD;
+        }
+
+        return of(row + dir.getRowDelta(), col + dir.getColDelta());
+    }
+
+    /**
+     * Gets the algebraic name of the position, e.g. e4.
+     *
+     * @return The algebraic name of the position, or - if it is off the board.
+     */
+    @Override
+    public String toString() {
+        if (this == OFF_BOARD) {
+            return "-";
+        }
+
+        return "" + (char) ('a' + col) + (char) ('8' - row);
     }
 }
@@ -0,0 +1,136 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Parses moves in standard algebraic notation (SAN), e.g. e4, Nbd7,
+ * exd6, e8=Q or O-O, into the legal moves of a board. Check and
+ * annotation suffixes such as +, # and !? are ignored.
+ */
+public final class SanParser {
+    private SanParser() { }
+
+    /**
+     * Parses a move of the side to move.
+     *
+     * @param board The chess board.
+     * @param san The move in standard algebraic notation.
+     * @return The move in the {@link PackedMove} encoding.
+     * @throws IllegalArgumentException If the move is malformed, illegal or ambiguous.
+     */
+    public static int parse(@NonNull Board board, @NonNull String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) != -1) {
+            end--;
+        }
+
+        String move = san.substring(0, end);
+
+        if (move.equals("O-O") || move.equals("0-0")) {
+            return findCastling(board, 6, san);
+        } else if (move.equals("O-O-O") || move.equals("0-0-0")) {
+            return findCastling(board, 2, san);
+        }
+
+        PieceType promotionPieceType = null;
+        if (end >= 2 && "NBRQ".indexOf(move.charAt(end - 1)) != -1) {
+            promotionPieceType = getPieceType(move.charAt(end - 1));
+            end -= move.charAt(end - 2) == '=' ? 2 : 1;
+        }
+
+        PieceType type = PieceType.PAWN;
+        int start = 0;
+        if (end > 0 && "NBRQK".indexOf(move.charAt(0)) != -1) {
+            type = getPieceType(move.charAt(0));
+            start = 1;
+        }
+
+        if (end - start < 2) {
+            throw error("missing target square", san);
+        }
+
+        int toCol = move.charAt(end - 2) - 'a';
+        int toRow = '8' - move.charAt(end - 1);
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            throw error("wrong target square", san);
+        }
+
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = move.charAt(i);
+
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x') {
+                throw error("unexpected character " + c, san);
+            }
+        }
+
+        int to = toRow * 8 + toCol;
+        int found = PackedMove.NONE;
+        PrimitiveIterator.OfInt moves = board.legalMoveIterator(board.getSideToMove());
+
+        while (moves.hasNext()) {
+            int candidate = moves.nextInt();
+            int from = PackedMove.getFrom(candidate);
+
+            if (PackedMove.getTo(candidate) == to
+                    && PackedMove.getFlag(candidate) != PackedMove.CASTLING
+                    && board.getPiece(from >>> 3, from & 7).getType() == type
+                    && (fromCol == -1 || (from & 7) == fromCol)
+                    && (fromRow == -1 || from >>> 3 == fromRow)
+                    && PackedMove.getPromotionPieceType(candidate) == promotionPieceType) {
+                if (found != PackedMove.NONE) {
+                    throw error("ambiguous move", san);
+                }
+
+                found = candidate;
+            }
+        }
+
+        if (found == PackedMove.NONE) {
+            throw error("illegal move", san);
+        }
+
+        return found;
+    }
+
+    /** Finds the legal castling move of the king to the specified column. */
+    private static int findCastling(Board board, int kingCol, String san) {
+        PrimitiveIterator.OfInt moves = board.legalMoveIterator(board.getSideToMove());
+
+        while (moves.hasNext()) {
+            int move = moves.nextInt();
+
+            if (PackedMove.getFlag(move) == PackedMove.CASTLING
+                    && (PackedMove.getTo(move) & 7) == kingCol) {
+                return move;
+            }
+        }
+
+        throw error("illegal castling", san);
+    }
+
+    /** Gets the piece type of the SAN piece letter. */
+    private static PieceType getPieceType(char letter) {
+        return switch (letter) {
+            case 'N' -> PieceType.KNIGHT;
+            case 'B' -> PieceType.BISHOP;
+            case 'R' -> PieceType.ROOK;
+            case 'Q' -> PieceType.QUEEN;
+            default -> PieceType.KING;
+        };
+    }
+
+    /** Creates an exception for a move that cannot be parsed. */
+    private static IllegalArgumentException error(String message, String san) {
+        return new IllegalArgumentException("Cannot parse SAN move, " + message + ": " + san);
+    }
+}
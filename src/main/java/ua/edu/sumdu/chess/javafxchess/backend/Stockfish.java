@@ -1,19 +1,49 @@
 package ua.edu.sumdu.chess.javafxchess.backend;
 
-import java.io.*;
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.uci.UciClient;
+import ua.edu.sumdu.chess.javafxchess.backend.uci.UciEnginePool;
+import ua.edu.sumdu.chess.javafxchess.backend.uci.UciSearchResult;
+
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Represents the Stockfish chess engine.
+ * Represents the Stockfish chess engine, which runs as a separate
+ * process and is driven through the UCI protocol.
+ * Processes are leased from a pool for the duration of a game.
  */
-public class Stockfish {
-    private Process process;
-    private BufferedReader reader;
-    private BufferedWriter writer;
+public class Stockfish implements Engine {
+    private static final String EXECUTABLE = "stockfish-windows-x86-64-sse41-popcnt.exe";
+    /** The time to wait for an engine from the pool, in seconds. */
+    private static final int LEASE_TIMEOUT = 10;
+    /**
+     * The size of the shared pool, set by the {@code stockfish.poolSize}
+     * system property, 2 by default.
+     */
+    private static final int SHARED_POOL_SIZE = Integer.getInteger("stockfish.poolSize", 2);
+    private static UciEnginePool sharedPool;
+
+    private final UciEnginePool pool;
+    /** The process leased from the pool, released when Stockfish stops. */
+    private CompletableFuture<UciClient> lease;
+    /** The leased process once its options are set. */
+    private CompletableFuture<UciClient> client;
     private final int skillLevel;
     private final int moveTime;
+    private final boolean isPondering;
+    /** The reply Stockfish expects to its last move, or null. */
+    private volatile String expectedMove;
+    /** The position arguments of the running ponder search, or null. */
+    private String ponderPosition;
+    private CompletableFuture<UciSearchResult> ponderSearch;
+    /** The last search started, which must finish before the process is returned. */
+    private CompletableFuture<UciSearchResult> pendingSearch;
+    private final Object lock = new Object();
+    /** Whether the game has ended, after which no search is started. */
+    private boolean isStopped;
 
     /**
      * Constructs a Stockfish instance with the specified skill level.
@@ -21,78 +51,273 @@ public class Stockfish {
      * @param skillLevel The skill level of Stockfish (0 to 20).
      */
     public Stockfish(int skillLevel) {
+        this(skillLevel, getSharedPool());
+    }
+
+    /**
+     * Constructs a pondering Stockfish instance with the specified
+     * skill level, which leases its process from the specified pool.
+     *
+     * @param skillLevel The skill level of Stockfish (0 to 20).
+     * @param pool The pool of Stockfish processes.
+     */
+    public Stockfish(int skillLevel, @NonNull UciEnginePool pool) {
+        this(skillLevel, pool, true);
+    }
+
+    /**
+     * Constructs a Stockfish instance with the specified skill level,
+     * which leases its process from the specified pool.
+     *
+     * @param skillLevel The skill level of Stockfish (0 to 20).
+     * @param pool The pool of Stockfish processes.
+     * @param isPondering Whether Stockfish thinks on the opponent's time.
+     */
+    public Stockfish(int skillLevel, @NonNull UciEnginePool pool, boolean isPondering) {
+        this.pool = pool;
+        this.isPondering = isPondering;
         this.skillLevel = Math.min(Math.max(skillLevel, 0), 20);
         this.moveTime = 100 * this.skillLevel + 500;
     }
 
-    /** Starts the Stockfish engine. */
-    public void start() throws IOException {
-        ProcessBuilder builder = new ProcessBuilder(
-            Objects.requireNonNull(
-                Stockfish.class
-                    .getClassLoader()
-                    .getResource("stockfish-windows-x86-64-sse41-popcnt.exe")
-            ).getPath()
-        );
-
-        process = builder.start();
-        OutputStream stdin = process.getOutputStream();
-        InputStream stdout = process.getInputStream();
-
-        reader = new BufferedReader(new InputStreamReader(stdout));
-        writer = new BufferedWriter(new OutputStreamWriter(stdin));
-
-        sendCommand("uci");
-        setSkillLevel();
+    /**
+     * Checks if the Stockfish executable is bundled with the application
+     * and can run on this machine. The bundled executable is built
+     * for Windows on x86-64 only.
+     */
+    public static boolean isAvailable() {
+        String os = System.getProperty("os.name", "");
+        String arch = System.getProperty("os.arch", "");
+
+        return os.startsWith("Windows")
+            && (arch.equals("amd64") || arch.equals("x86_64"))
+            && Stockfish.class.getClassLoader().getResource(EXECUTABLE) != null;
     }
 
-    /** Stops the Stockfish engine. */
-    public void stop() {
-        try {
-            sendCommand("quit");
-        } catch (IOException e) {
-            process.destroy();
+    /**
+     * Gets the pool of processes of the bundled Stockfish executable
+     * shared by all games, creating it on first use.
+     *
+     * @return The shared pool.
+     */
+    public static synchronized UciEnginePool getSharedPool() {
+        if (sharedPool == null) {
+            sharedPool = new UciEnginePool(
+                Objects.requireNonNull(
+                    Stockfish.class
+                        .getClassLoader()
+                        .getResource(EXECUTABLE)
+                ).getPath(),
+                SHARED_POOL_SIZE
+            );
         }
+
+        return sharedPool;
     }
 
     /**
-     * Sends a command to Stockfish.
-     *
-     * @param command The command to send.
+     * Starts a Stockfish process in the background if the executable
+     * is bundled, so that the first engine game does not wait for it.
      */
-    private void sendCommand(String command) throws IOException {
-        writer.write(command + "\n");
-        writer.flush();
+    public static void warmUp() {
+        if (isAvailable()) {
+            getSharedPool().warmUp(1);
+        }
     }
 
-    /** Sets the skill level of Stockfish. */
-    private void setSkillLevel() throws IOException {
-        sendCommand("setoption name Skill Level value " + skillLevel);
+    /** Quits the processes of the shared pool, if it was created. */
+    public static synchronized void shutdown() {
+        if (sharedPool != null) {
+            sharedPool.close();
+        }
+    }
+
+    /**
+     * Starts the Stockfish engine by leasing a process from the pool
+     * and setting the skill level. The lease completes asynchronously
+     * before the first search.
+     */
+    @Override
+    public void start() {
+        synchronized (lock) {
+            isStopped = false;
+        }
+
+        lease = pool.lease(LEASE_TIMEOUT, TimeUnit.SECONDS);
+        client = lease.thenCompose(uciClient -> {
+            uciClient.setOption("Skill Level", String.valueOf(skillLevel));
+            uciClient.setOption("Ponder", String.valueOf(isPondering));
+            uciClient.setOption("Move Overhead", String.valueOf(GameClock.MOVE_OVERHEAD));
+            return uciClient.isReady()
+                .orTimeout(LEASE_TIMEOUT, TimeUnit.SECONDS)
+                .thenApply(v -> uciClient);
+        });
     }
 
     /**
-     * Gets the best move from Stockfish for the given FEN string.
+     * Stops the running search, if any, and returns the process to the pool
+     * once the last search has finished, so that no search started before
+     * is still running when the process is leased again.
+     * The process is returned even if setting its options failed,
+     * and the pool replaces it if it does not answer.
+     */
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            isStopped = true;
+        }
+
+        if (lease != null) {
+            CompletableFuture<UciSearchResult> search = pendingSearch != null
+                ? pendingSearch
+                : CompletableFuture.completedFuture(null);
+
+            lease.thenAccept(uciClient -> {
+                uciClient.stop();
+                search.handle((result, ex) -> null)
+                    .thenRun(() -> pool.release(uciClient));
+            });
+            lease = null;
+            client = null;
+        }
+
+        pendingSearch = null;
+
+        expectedMove = null;
+        ponderPosition = null;
+        ponderSearch = null;
+    }
+
+    /**
+     * Gets the best move from Stockfish for the position of the board,
+     * sent as the starting position and the moves of the game, so that
+     * Stockfish keeps its search state between moves and sees repetitions.
+     * If Stockfish is pondering on this position, the ponder search
+     * becomes the real search, otherwise it is stopped first.
+     * With a game clock, Stockfish allocates its time from the clock,
+     * otherwise it searches for the time set by the skill level.
+     * The future is completed when Stockfish replies with its best move.
      *
-     * @param fen The FEN string representing the current board position.
+     * @param board The chess board.
+     * @param clock The game clock, or null if the game has no time limit.
      * @return A CompletableFuture that will be completed with the best move.
      */
-    public CompletableFuture<String> getBestMove(String fen) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                sendCommand("position fen " + fen);
-                sendCommand("go movetime " + moveTime);
-
-                Thread.sleep(moveTime);
-
-                String line;
-                do {
-                    line = reader.readLine();
-                } while (!line.contains("bestmove"));
-
-                return line.split(" ")[1];
-            } catch (Exception e) {
-                throw new CompletionException(e);
-            }
+    @Override
+    public CompletableFuture<String> getBestMove(Board board, GameClock clock) {
+        String position = UciClient.toPositionArguments(board);
+        CompletableFuture<UciSearchResult> search;
+
+        if (ponderSearch != null && position.equals(ponderPosition)) {
+            search = ponderSearch;
+            client.thenAccept(UciClient::ponderHit);
+        } else {
+            boolean isPonderMiss = ponderSearch != null;
+            search = client.thenCompose(uciClient -> {
+                CompletableFuture<Void> idle = isPonderMiss
+                    ? uciClient.stopSearch()
+                    : CompletableFuture.completedFuture(null);
+
+                return idle.thenCompose(v -> go(uciClient, position, getSearchLimits(clock)));
+            });
+        }
+
+        pendingSearch = search;
+        ponderPosition = null;
+        ponderSearch = null;
+
+        return search.thenApply(result -> {
+            expectedMove = getExpectedMove(result);
+            return result.getBestMove();
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Searches the position after the reply Stockfish expects to its move
+     * with {@code go ponder}, which runs until the reply is played
+     * or the search is stopped.
+     *
+     * @param board The chess board after Stockfish's move.
+     * @param clock The game clock, or null if the game has no time limit.
+     */
+    @Override
+    public void ponder(Board board, GameClock clock) {
+        String move = expectedMove;
+        expectedMove = null;
+
+        if (!isPondering || move == null || client == null || ponderSearch != null) {
+            return;
+        }
+
+        String position = UciClient.toPositionArguments(board);
+        String ponderPosition = position + (position.contains(" moves") ? " " : " moves ") + move;
+
+        this.ponderPosition = ponderPosition;
+        ponderSearch = client.thenCompose(uciClient ->
+            go(uciClient, ponderPosition, "ponder " + getSearchLimits(clock)));
+        pendingSearch = ponderSearch;
+    }
+
+    /**
+     * Stops the running ponder search. The next search is then
+     * a ponder miss, which waits for the ponder search to finish.
+     */
+    @Override
+    public void stopPondering() {
+        if (ponderSearch != null) {
+            ponderPosition = null;
+            client.thenAccept(UciClient::stop);
+        }
+    }
+
+    /**
+     * Sends the position and starts a search, unless Stockfish
+     * has been stopped since the search was requested.
+     */
+    private CompletableFuture<UciSearchResult> go(UciClient uciClient,
+                                                  String position, String arguments) {
+        synchronized (lock) {
+            if (isStopped) {
+                return CompletableFuture.failedFuture(
+                    new CancellationException("Stockfish is stopped"));
+            }
+
+            uciClient.position(position);
+            return uciClient.go(arguments);
+        }
+    }
+
+    /**
+     * Gets the arguments of the {@code go} command that limit the search,
+     * e.g. {@code wtime 300000 btime 300000 winc 0 binc 0}.
+     */
+    private String getSearchLimits(GameClock clock) {
+        if (clock == null) {
+            return "movetime " + moveTime;
+        }
+
+        String limits = "wtime " + clock.getWhiteTime()
+            + " btime " + clock.getBlackTime()
+            + " winc " + clock.getWhiteIncrement()
+            + " binc " + clock.getBlackIncrement();
+
+        return clock.getMovesToGo() > 0
+            ? limits + " movestogo " + clock.getMovesToGo()
+            : limits;
+    }
+
+    /**
+     * Gets the reply Stockfish expects, which is the ponder move
+     * of the best move or else the second move of the principal variation.
+     */
+    private static String getExpectedMove(UciSearchResult result) {
+        if (result.getPonderMove() != null) {
+            return result.getPonderMove();
+        }
+
+        if (result.getInfo() != null && result.getInfo().getPv().size() >= 2) {
+            return result.getInfo().getPv().get(1);
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Provides the random keys used for Zobrist hashing of board positions.
+ * A position key is the XOR of the keys of its pieces, castling rights,
+ * en passant file and side to move.
+ */
+public class Zobrist {
+    private static final long[] PIECE_KEYS = new long[12 * 64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long SIDE_KEY;
+
+    static {
+        // fixed seed, so keys are the same in every run
+        SplittableRandom random = new SplittableRandom(0x2545F4914F6CDD1DL);
+
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+
+        // no castling rights hash to zero
+        for (int i = 1; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+
+        SIDE_KEY = random.nextLong();
+    }
+
+    /**
+     * Gets the key of a piece standing on a square.
+     *
+     * @param color The color of the piece.
+     * @param type The type of the piece.
+     * @param square The square index.
+     * @return The key of the piece on the square.
+     */
+    public static long getPieceKey(@NonNull PieceColor color,
+                                   @NonNull PieceType type, int square) {
+        int pieceIndex = color.ordinal() * PieceType.values().length + type.ordinal();
+        return PIECE_KEYS[pieceIndex * 64 + square];
+    }
+
+    /**
+     * Gets the key of a set of castling rights.
+     *
+     * @param castlingRights The castling rights bit mask.
+     * @return The key of the castling rights.
+     */
+    public static long getCastlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    /**
+     * Gets the key of an en passant target file.
+     *
+     * @param col The column of the en passant target square.
+     * @return The key of the en passant file.
+     */
+    public static long getEnPassantKey(int col) {
+        return EN_PASSANT_KEYS[col];
+    }
+
+    /** Gets the key added when black is to move. */
+    public static long getSideKey() {
+        return SIDE_KEY;
+    }
+}
@@ -0,0 +1,188 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sums the weights of position-move pairs in an open-addressing hash map
+ * over primitive arrays, keyed by the Polyglot key and the Polyglot move,
+ * so that no object is allocated per entry. The map has a fixed capacity
+ * and is spilled to a sorted run file when it is full.
+ * A map is used by one thread at a time.
+ */
+final class BookEntryMap {
+    /** The size of an entry of a run file, in bytes. */
+    static final int RUN_ENTRY_SIZE = 16;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final long[] keys;
+    /** The Polyglot moves of the entries, where 0 marks an empty slot as no move is a1a1. */
+    private final int[] moves;
+    private final int[] weights;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    /**
+     * Constructs a BookEntryMap.
+     *
+     * @param maxSize The number of entries after which the map is full.
+     */
+    BookEntryMap(int maxSize) {
+        int capacity = Integer.highestOneBit(Math.max(maxSize, 16) * 4 / 3) << 1;
+        this.keys = new long[capacity];
+        this.moves = new int[capacity];
+        this.weights = new int[capacity];
+        this.mask = capacity - 1;
+        this.maxSize = maxSize;
+    }
+
+    /** Checks if the map is full and has to be spilled before the next entry. */
+    boolean isFull() {
+        return size >= maxSize;
+    }
+
+    /** Gets the number of entries. */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a weight to the entry of the position and the move.
+     *
+     * @param key The Polyglot key of the position.
+     * @param move The move in the Polyglot encoding.
+     * @param weight The weight to add.
+     */
+    void add(long key, int move, int weight) {
+        int index = hash(key, move) & mask;
+
+        while (moves[index] != 0) {
+            if (keys[index] == key && moves[index] == move) {
+                weights[index] = (int) Math.min((long) weights[index] + weight, Integer.MAX_VALUE);
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        moves[index] = move;
+        weights[index] = weight;
+        size++;
+    }
+
+    /**
+     * Writes the entries to a run file sorted by unsigned key and move,
+     * each as the key, the move and the weight in 16 bytes, and clears the map.
+     *
+     * @param out The stream of the run file.
+     * @throws IOException If the entries cannot be written.
+     */
+    void spill(DataOutputStream out) throws IOException {
+        int count = 0;
+
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] != 0) {
+                keys[count] = keys[i];
+                moves[count] = moves[i];
+                weights[count] = weights[i];
+                count++;
+            }
+        }
+
+        sort(0, count - 1);
+
+        for (int i = 0; i < count; i++) {
+            out.writeLong(keys[i]);
+            out.writeInt(moves[i]);
+            out.writeInt(weights[i]);
+        }
+
+        Arrays.fill(moves, 0);
+        size = 0;
+    }
+
+    /** Mixes the key and the move, as the low bits of keys of similar positions repeat. */
+    private static int hash(long key, int move) {
+        long h = (key ^ move) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Sorts the entries in the inclusive range by unsigned key and move
+     * with quicksort, finishing small ranges with insertion sort.
+     */
+    private void sort(int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            int pivot = medianOfThree(low, (low + high) >>> 1, high);
+            long pivotKey = keys[pivot];
+            int pivotMove = moves[pivot];
+            int i = low;
+            int j = high;
+
+            while (i <= j) {
+                while (compare(i, pivotKey, pivotMove) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotKey, pivotMove) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+
+            // recurse into the smaller part to bound the stack depth
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, keys[j - 1], moves[j - 1]) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    /** Gets the index of the median entry of three. */
+    private int medianOfThree(int a, int b, int c) {
+        if (compare(a, keys[b], moves[b]) < 0) {
+            if (compare(b, keys[c], moves[c]) < 0) {
+                return b;
+            }
+            return compare(a, keys[c], moves[c]) < 0 ? c : a;
+        }
+
+        if (compare(a, keys[c], moves[c]) < 0) {
+            return a;
+        }
+        return compare(b, keys[c], moves[c]) < 0 ? c : b;
+    }
+
+    /** Compares the entry at the index with the key and the move. */
+    private int compare(int index, long key, int move) {
+        int result = Long.compareUnsigned(keys[index], key);
+        return result != 0 ? result : Integer.compare(moves[index], move);
+    }
+
+    /** Swaps two entries. */
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int move = moves[a];
+        moves[a] = moves[b];
+        moves[b] = move;
+        int weight = weights[a];
+        weights[a] = weights[b];
+        weights[b] = weight;
+    }
+}
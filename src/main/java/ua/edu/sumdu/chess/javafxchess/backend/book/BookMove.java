@@ -0,0 +1,31 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+import lombok.Getter;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+
+/**
+ * Represents a move of an opening book and its weight.
+ */
+@Getter
+public class BookMove {
+    /** The move in the {@link PackedMove} encoding. */
+    private final int move;
+    /** The weight of the move, usually derived from how often it was played. */
+    private final int weight;
+
+    /**
+     * Constructs a BookMove.
+     *
+     * @param move The move in the {@link PackedMove} encoding.
+     * @param weight The weight of the move.
+     */
+    public BookMove(int move, int weight) {
+        this.move = move;
+        this.weight = weight;
+    }
+
+    @Override
+    public String toString() {
+        return PackedMove.toString(move) + " (" + weight + ")";
+    }
+}
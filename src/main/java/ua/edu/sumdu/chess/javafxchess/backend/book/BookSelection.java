@@ -0,0 +1,11 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+/**
+ * Represents the ways of choosing among the book moves of a position.
+ */
+public enum BookSelection {
+    /** The move with the highest weight. */
+    BEST_WEIGHT,
+    /** A random move, chosen with a probability proportional to its weight. */
+    WEIGHTED_RANDOM
+}
@@ -0,0 +1,198 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+import lombok.Getter;
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents an opening book in the Polyglot {@code .bin} format.
+ * The file is a sequence of 16-byte big-endian entries sorted by key:
+ * the Polyglot key of the position (8 bytes), the move (2 bytes),
+ * its weight (2 bytes) and learning data (4 bytes). The file is
+ * memory-mapped, and the entries of a position are found
+ * by binary search, so a lookup reads only a few pages of the file.
+ * Lookups do not change the book and can run on several threads.
+ */
+public class PolyglotBook {
+    /** The size of a book entry, in bytes. */
+    public static final int ENTRY_SIZE = 16;
+
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+    /**
+     * The path of the book used by engine games, set by
+     * the {@code chess.book} system property, none by default.
+     */
+    private static final String DEFAULT_BOOK = System.getProperty("chess.book");
+    private static PolyglotBook defaultBook;
+    private static boolean isDefaultBookLoaded;
+
+    private final ByteBuffer entries;
+    /** The number of entries in the book. */
+    @Getter
+    private final int entryCount;
+
+    /**
+     * Constructs a PolyglotBook by memory-mapping the specified file.
+     *
+     * @param path The path of the book file.
+     * @throws IOException If the file cannot be read or is not a Polyglot book.
+     */
+    public PolyglotBook(@NonNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a Polyglot book: " + path);
+            }
+
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entryCount = (int) (size / ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * Gets the book set by the {@code chess.book} system property,
+     * opening it on first use. A book that cannot be opened
+     * is logged as a warning, and games are played without it.
+     *
+     * @return The default book, or null if none is set or it cannot be opened.
+     */
+    public static synchronized PolyglotBook getDefault() {
+        if (!isDefaultBookLoaded) {
+            isDefaultBookLoaded = true;
+
+            if (DEFAULT_BOOK != null) {
+                try {
+                    defaultBook = new PolyglotBook(Path.of(DEFAULT_BOOK));
+                } catch (IOException | InvalidPathException e) {
+                    System.getLogger(PolyglotBook.class.getName()).log(System.Logger.Level.WARNING,
+                        "Cannot open the opening book set by chess.book: " + DEFAULT_BOOK, e);
+                }
+            }
+        }
+
+        return defaultBook;
+    }
+
+    /**
+     * Gets the book moves of the position of the board that are legal
+     * and have a positive weight, in the order of the book.
+     *
+     * @param board The chess board.
+     * @return The book moves, or an empty list if the position is not in the book.
+     */
+    public List<BookMove> getMoves(@NonNull Board board) {
+        long key = Polyglot.getKey(board);
+        List<BookMove> moves = new ArrayList<>();
+
+        for (int index = findFirstEntry(key);
+                index < entryCount && getKey(index) == key; index++) {
+            int offset = index * ENTRY_SIZE;
+            int weight = Short.toUnsignedInt(entries.getShort(offset + WEIGHT_OFFSET));
+            int move = Polyglot.decodeMove(board,
+                Short.toUnsignedInt(entries.getShort(offset + MOVE_OFFSET)));
+
+            // a move that is not legal means a key collision or a broken book
+            if (weight > 0 && move != PackedMove.NONE) {
+                moves.add(new BookMove(move, weight));
+            }
+        }
+
+        return moves;
+    }
+
+    /**
+     * Chooses a book move for the position of the board.
+     *
+     * @param board The chess board.
+     * @param selection The way of choosing among the book moves.
+     * @return The move in the {@link PackedMove} encoding,
+     * or {@link PackedMove#NONE} if the position is not in the book.
+     */
+    public int getMove(@NonNull Board board, @NonNull BookSelection selection) {
+        List<BookMove> moves = getMoves(board);
+
+        if (moves.isEmpty()) {
+            return PackedMove.NONE;
+        }
+
+        return switch (selection) {
+            case BEST_WEIGHT -> getBestWeightMove(moves);
+            case WEIGHTED_RANDOM -> getWeightedRandomMove(moves);
+        };
+    }
+
+    /** Gets the move with the highest weight, the first one on ties. */
+    private static int getBestWeightMove(List<BookMove> moves) {
+        BookMove best = moves.get(0);
+
+        for (BookMove move : moves) {
+            if (move.getWeight() > best.getWeight()) {
+                best = move;
+            }
+        }
+
+        return best.getMove();
+    }
+
+    /** Gets a random move with a probability proportional to its weight. */
+    private static int getWeightedRandomMove(List<BookMove> moves) {
+        int totalWeight = 0;
+
+        for (BookMove move : moves) {
+            totalWeight += move.getWeight();
+        }
+
+        int target = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for (BookMove move : moves) {
+            target -= move.getWeight();
+
+            if (target < 0) {
+                return move.getMove();
+            }
+        }
+
+        return moves.get(moves.size() - 1).getMove();
+    }
+
+    /**
+     * Finds the first entry whose key is not less than the specified key,
+     * comparing keys as unsigned numbers as the book is sorted.
+     *
+     * @return The index of the entry, or the entry count if there is none.
+     */
+    private int findFirstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /** Gets the key of the entry at the specified index. */
+    private long getKey(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+}
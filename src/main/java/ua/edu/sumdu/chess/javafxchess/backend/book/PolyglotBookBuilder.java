@@ -0,0 +1,549 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.PgnGame;
+import ua.edu.sumdu.chess.javafxchess.backend.PgnReader;
+import ua.edu.sumdu.chess.javafxchess.backend.SanParser;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds Polyglot opening books from PGN files. The files are read
+ * as a stream of games, which are replayed in batches on fork-join
+ * workers up to a maximum number of plies. Every worker sums the weights
+ * of the position-move pairs it sees in its own {@link BookEntryMap}
+ * and spills the map to a sorted run file when it is full. The runs are
+ * then merged into the book, so memory stays bounded however many
+ * games there are. A move scores 2 for a win and 1 for a draw of the side
+ * that played it, and its weight in the book is its total score, scaled
+ * per position to fit 16 bits. Moves that only lost are left out.
+ */
+public class PolyglotBookBuilder {
+    /** The default number of plies replayed per game. */
+    public static final int DEFAULT_MAX_PLIES = 24;
+    /** The default number of entries a worker keeps before spilling. */
+    public static final int DEFAULT_ENTRIES_PER_WORKER = 1 << 20;
+
+    private static final int BATCH_SIZE = 512;
+    /** The number of games below which a batch is not split further. */
+    private static final int SPLIT_THRESHOLD = 32;
+    /** The maximum number of runs merged at once. */
+    private static final int MAX_MERGE_RUNS = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPlies;
+    private final int parallelism;
+    private final int entriesPerWorker;
+    private final AtomicLong gameCount = new AtomicLong();
+    private final AtomicInteger runCount = new AtomicInteger();
+    private final Queue<Path> runs = new ConcurrentLinkedQueue<>();
+    private final Queue<BookEntryMap> maps = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final ThreadLocal<BookEntryMap> workerMap = ThreadLocal.withInitial(this::createWorkerMap);
+    private Path runDirectory;
+
+    /**
+     * Constructs a PolyglotBookBuilder with the default number of plies
+     * and entries per worker, using all available processors.
+     */
+    public PolyglotBookBuilder() {
+        this(DEFAULT_MAX_PLIES, Runtime.getRuntime().availableProcessors(),
+            DEFAULT_ENTRIES_PER_WORKER);
+    }
+
+    /**
+     * Constructs a PolyglotBookBuilder.
+     *
+     * @param maxPlies The number of plies replayed per game.
+     * @param parallelism The number of worker threads, at least 1.
+     * @param entriesPerWorker The number of entries a worker keeps in memory
+     * before spilling them to disk, which bounds the memory used.
+     */
+    public PolyglotBookBuilder(int maxPlies, int parallelism, int entriesPerWorker) {
+        this.maxPlies = Math.max(maxPlies, 1);
+        this.parallelism = Math.max(parallelism, 1);
+        this.entriesPerWorker = Math.max(entriesPerWorker, 1);
+    }
+
+    /**
+     * Builds a book from PGN files with the default settings.
+     * Usage: {@code PolyglotBookBuilder [--plies N] [--threads N] [--entries N] book.bin games.pgn...}
+     *
+     * @param args The options, the output file and the PGN files.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int entriesPerWorker = DEFAULT_ENTRIES_PER_WORKER;
+        int i = 0;
+
+        for (; i + 1 < args.length && args[i].startsWith("--"); i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+
+            switch (args[i]) {
+                case "--plies" -> maxPlies = value;
+                case "--threads" -> parallelism = value;
+                case "--entries" -> entriesPerWorker = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (args.length - i < 2) {
+            System.err.println("Usage: PolyglotBookBuilder [--plies N] [--threads N]"
+                + " [--entries N] book.bin games.pgn...");
+            System.exit(1);
+        }
+
+        List<Path> pgnFiles = new ArrayList<>();
+        for (int j = i + 1; j < args.length; j++) {
+            pgnFiles.add(Path.of(args[j]));
+        }
+
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(maxPlies, parallelism, entriesPerWorker);
+        long start = System.nanoTime();
+        long entryCount = builder.build(pgnFiles, Path.of(args[i]));
+
+        System.out.printf("%d games, %d book entries, %.1f s%n",
+            builder.getGameCount(), entryCount, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Builds a book from the games of the PGN files.
+     * A builder builds one book at a time.
+     *
+     * @param pgnFiles The PGN files.
+     * @param output The path of the book file to write.
+     * @return The number of entries in the book.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public synchronized long build(@NonNull List<Path> pgnFiles, @NonNull Path output)
+            throws IOException {
+        gameCount.set(0);
+        runCount.set(0);
+        runs.clear();
+        maps.clear();
+        failure.set(null);
+        runDirectory = Files.createTempDirectory(output.toAbsolutePath().getParent(), "book-runs");
+
+        try {
+            replayGames(pgnFiles);
+
+            for (BookEntryMap map : maps) {
+                if (map.size() > 0) {
+                    spill(map);
+                }
+            }
+
+            List<Path> sortedRuns = new ArrayList<>(runs);
+
+            while (sortedRuns.size() > MAX_MERGE_RUNS) {
+                List<Path> group = new ArrayList<>(sortedRuns.subList(0, MAX_MERGE_RUNS));
+                sortedRuns.subList(0, MAX_MERGE_RUNS).clear();
+                Path run = createRunFile();
+
+                try (RunWriter writer = new RunWriter(run)) {
+                    merge(group, writer);
+                }
+                sortedRuns.add(run);
+            }
+
+            BookWriter writer = new BookWriter(output);
+            try (writer) {
+                merge(sortedRuns, writer);
+            }
+
+            // the last position is written when the writer is closed
+            return writer.getEntryCount();
+        } finally {
+            try (var files = Files.list(runDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(runDirectory);
+        }
+    }
+
+    /**
+     * Gets the number of games replayed by the last build.
+     *
+     * @return The number of games with a known result.
+     */
+    public long getGameCount() {
+        return gameCount.get();
+    }
+
+    /** Creates the map of a worker and registers it to be spilled at the end. */
+    private BookEntryMap createWorkerMap() {
+        BookEntryMap map = new BookEntryMap(entriesPerWorker);
+        maps.add(map);
+        return map;
+    }
+
+    /**
+     * Reads the games and replays them in batches on the workers.
+     * The number of batches waiting for a worker is limited,
+     * so reading cannot run ahead of replaying.
+     */
+    private void replayGames(List<Path> pgnFiles) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore pendingBatches = new Semaphore(2 * parallelism);
+
+        try {
+            for (Path file : pgnFiles) {
+                try (PgnReader reader = new PgnReader(
+                        Files.newBufferedReader(file, StandardCharsets.ISO_8859_1))) {
+                    List<PgnGame> batch = new ArrayList<>(BATCH_SIZE);
+                    PgnGame game;
+
+                    while ((game = reader.next()) != null && failure.get() == null) {
+                        batch.add(game);
+
+                        if (batch.size() == BATCH_SIZE) {
+                            submit(pool, pendingBatches, batch);
+                            batch = new ArrayList<>(BATCH_SIZE);
+                        }
+                    }
+
+                    if (!batch.isEmpty()) {
+                        submit(pool, pendingBatches, batch);
+                    }
+                }
+            }
+
+            pool.shutdown();
+
+            if (!pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                throw new IOException("Replaying the games did not finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying the games", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IOException("Replaying the games failed", cause);
+        }
+    }
+
+    /** Submits a batch of games, waiting while too many batches are pending. */
+    private void submit(ForkJoinPool pool, Semaphore pendingBatches, List<PgnGame> batch)
+            throws InterruptedException {
+        pendingBatches.acquire();
+        pool.execute(ForkJoinTask.adapt(() -> {
+            try {
+                new ReplayTask(batch, 0, batch.size()).invoke();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                pendingBatches.release();
+            }
+        }));
+    }
+
+    /**
+     * Replays the first plies of a game into the map of the current worker.
+     * Games without a result are skipped, and a game is cut off
+     * at the first move that cannot be parsed.
+     */
+    private void replay(PgnGame game) {
+        int whiteScore = switch (game.getResult()) {
+            case "1-0" -> 2;
+            case "1/2-1/2" -> 1;
+            case "0-1" -> 0;
+            default -> -1;
+        };
+
+        if (whiteScore == -1) {
+            return;
+        }
+
+        Board board;
+        try {
+            String fen = game.getTags().get("FEN");
+            board = Board.fromFEN(fen == null ? Board.START_FEN : fen);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        gameCount.incrementAndGet();
+        BookEntryMap map = workerMap.get();
+        int plies = Math.min(maxPlies, game.getMoves().size());
+
+        for (int ply = 0; ply < plies; ply++) {
+            int move;
+            try {
+                move = SanParser.parse(board, game.getMoves().get(ply));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+
+            int score = board.getSideToMove() == PieceColor.WHITE ? whiteScore : 2 - whiteScore;
+
+            if (score > 0) {
+                if (map.isFull()) {
+                    spill(map);
+                }
+
+                map.add(Polyglot.getKey(board), Polyglot.encodeMove(move), score);
+            }
+
+            board.makeMove(move);
+        }
+    }
+
+    /** Spills the map to a new run file. */
+    private void spill(BookEntryMap map) {
+        try {
+            Path run = createRunFile();
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+                map.spill(out);
+            }
+            runs.add(run);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Creates an empty run file in the run directory. */
+    private Path createRunFile() throws IOException {
+        return Files.createFile(runDirectory.resolve("run-" + runCount.incrementAndGet()));
+    }
+
+    /**
+     * Merges sorted runs, summing the weights of the entries
+     * with the same key and move, and writes the entries in order.
+     */
+    private static void merge(List<Path> sortedRuns, EntryWriter writer) throws IOException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(RunReader::compareTo);
+
+        try {
+            for (Path run : sortedRuns) {
+                RunReader reader = new RunReader(run);
+
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            while (!readers.isEmpty()) {
+                RunReader first = readers.poll();
+                long key = first.key;
+                int move = first.move;
+                long weight = first.weight;
+                advance(readers, first);
+
+                while (!readers.isEmpty()
+                        && readers.peek().key == key && readers.peek().move == move) {
+                    RunReader same = readers.poll();
+                    weight += same.weight;
+                    advance(readers, same);
+                }
+
+                writer.write(key, move, weight);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /** Moves the reader to its next entry and puts it back, or closes it at the end of its run. */
+    private static void advance(PriorityQueue<RunReader> readers, RunReader reader)
+            throws IOException {
+        if (reader.next()) {
+            readers.add(reader);
+        } else {
+            reader.close();
+        }
+    }
+
+    /** Replays a range of a batch of games, splitting it among the workers. */
+    @SuppressWarnings("serial")
+    private class ReplayTask extends RecursiveAction {
+        private final List<PgnGame> games;
+        private final int from;
+        private final int to;
+
+        ReplayTask(List<PgnGame> games, int from, int to) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    replay(games.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReplayTask(games, from, middle), new ReplayTask(games, middle, to));
+            }
+        }
+    }
+
+    /** Writes merged entries. */
+    private interface EntryWriter extends Closeable {
+        void write(long key, int move, long weight) throws IOException;
+    }
+
+    /** Writes merged entries to an intermediate run file. */
+    private static class RunWriter implements EntryWriter {
+        private final DataOutputStream out;
+
+        RunWriter(Path run) throws IOException {
+            out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE));
+        }
+
+        @Override
+        public void write(long key, int move, long weight) throws IOException {
+            out.writeLong(key);
+            out.writeInt(move);
+            out.writeInt((int) Math.min(weight, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes merged entries to the book. The entries of a position are
+     * collected, scaled so that the highest weight fits 16 bits
+     * and written in the order of decreasing weight.
+     */
+    private static class BookWriter implements EntryWriter {
+        private final DataOutputStream out;
+        private final List<long[]> position = new ArrayList<>();
+        private long positionKey;
+        private long entryCount;
+
+        BookWriter(Path book) throws IOException {
+            out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(book), BUFFER_SIZE));
+        }
+
+        @Override
+        public void write(long key, int move, long weight) throws IOException {
+            if (!position.isEmpty() && key != positionKey) {
+                writePosition();
+            }
+
+            positionKey = key;
+            position.add(new long[] { move, weight });
+        }
+
+        long getEntryCount() {
+            return entryCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writePosition();
+            } finally {
+                out.close();
+            }
+        }
+
+        /** Writes the collected entries of the current position. */
+        private void writePosition() throws IOException {
+            long maxWeight = 0;
+            for (long[] entry : position) {
+                maxWeight = Math.max(maxWeight, entry[1]);
+            }
+
+            position.sort((a, b) -> Long.compare(b[1], a[1]));
+
+            for (long[] entry : position) {
+                long weight = maxWeight > MAX_WEIGHT
+                    ? Math.max(entry[1] * MAX_WEIGHT / maxWeight, 1)
+                    : entry[1];
+
+                out.writeLong(positionKey);
+                out.writeShort((int) entry[0]);
+                out.writeShort((int) weight);
+                out.writeInt(0);
+                entryCount++;
+            }
+
+            position.clear();
+        }
+    }
+
+    /** Reads the entries of a sorted run file. */
+    private static class RunReader implements Closeable, Comparable<RunReader> {
+        private final DataInputStream in;
+        private long key;
+        private int move;
+        private int weight;
+
+        RunReader(Path run) throws IOException {
+            in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+        }
+
+        /** Reads the next entry, returning false at the end of the run. */
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+
+            move = in.readInt();
+            weight = in.readInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            int result = Long.compareUnsigned(key, other.key);
+            return result != 0 ? result : Integer.compare(move, other.move);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+/**
+ * Evaluates chess positions by material and piece-square tables.
+ * The king table is interpolated between the middlegame and the endgame
+ * by the amount of non-pawn material left on the board.
+ */
+public class Evaluator {
+    private static final int[] PIECE_VALUES = { 100, 330, 320, 500, 900, 0 };
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+    private static final int MAX_PHASE = 24;
+
+    // Tables are seen from white's side, indexed by square (a8 = 0, h1 = 63)
+    private static final int[] PAWN_TABLE = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+        50,  50,  50,  50,  50,  50,  50,  50,
+        10,  10,  20,  30,  30,  20,  10,  10,
+         5,   5,  10,  25,  25,  10,   5,   5,
+         0,   0,   0,  20,  20,   0,   0,   0,
+         5,  -5, -10,   0,   0, -10,  -5,   5,
+         5,  10,  10, -20, -20,  10,  10,   5,
+         0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] ROOK_TABLE = {
+         0,   0,   0,   0,   0,   0,   0,   0,
+         5,  10,  10,  10,  10,  10,  10,   5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+        -5,   0,   0,   0,   0,   0,   0,  -5,
+         0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[][] TABLES = {
+        PAWN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, QUEEN_TABLE
+    };
+
+    /**
+     * Gets the material value of a piece type in centipawns.
+     *
+     * @param type The piece type.
+     * @return The value of the piece type, 0 for the king.
+     */
+    public static int getPieceValue(@NonNull PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Evaluates the position on the board.
+     *
+     * @param board The chess board.
+     * @param color The color to evaluate the position for.
+     * @return The score in centipawns, positive if
+     * the position is better for the specified color.
+     */
+    public int evaluate(@NonNull Board board, @NonNull PieceColor color) {
+        int score = 0;
+        int phase = 0;
+
+        for (PieceType type : PieceType.values()) {
+            if (type == PieceType.KING) {
+                continue;
+            }
+
+            long white = board.getBitboard(PieceColor.WHITE, type);
+            long black = board.getBitboard(PieceColor.BLACK, type);
+            int[] table = TABLES[type.ordinal()];
+
+            score += (Long.bitCount(white) - Long.bitCount(black)) * PIECE_VALUES[type.ordinal()];
+            score += sumTable(table, white, false) - sumTable(table, black, true);
+            phase += (Long.bitCount(white) + Long.bitCount(black)) * PHASE_WEIGHTS[type.ordinal()];
+        }
+
+        phase = Math.min(phase, MAX_PHASE);
+        long whiteKing = board.getBitboard(PieceColor.WHITE, PieceType.KING);
+        long blackKing = board.getBitboard(PieceColor.BLACK, PieceType.KING);
+        int kingMiddlegame = sumTable(KING_MIDDLEGAME_TABLE, whiteKing, false)
+            - sumTable(KING_MIDDLEGAME_TABLE, blackKing, true);
+        int kingEndgame = sumTable(KING_ENDGAME_TABLE, whiteKing, false)
+            - sumTable(KING_ENDGAME_TABLE, blackKing, true);
+        score += (kingMiddlegame * phase + kingEndgame * (MAX_PHASE - phase)) / MAX_PHASE;
+
+        return color == PieceColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Sums the table values of the squares of the bitboard,
+     * mirroring the squares vertically for black pieces.
+     */
+    private static int sumTable(int[] table, long bitboard, boolean mirror) {
+        int sum = 0;
+
+        while (bitboard != 0) {
+            int square = Long.numberOfTrailingZeros(bitboard);
+            sum += table[mirror ? square ^ 56 : square];
+            bitboard &= bitboard - 1;
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,195 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.Engine;
+import ua.edu.sumdu.chess.javafxchess.backend.GameClock;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Represents the built-in chess engine, which searches
+ * on background threads in the application process.
+ * With several threads it uses Lazy SMP: every thread searches
+ * the same root position on its own copy of the board, and the threads
+ * help each other only through the shared transposition table.
+ */
+public class NativeEngine implements Engine {
+    /** The default size of the transposition table, in megabytes. */
+    public static final int DEFAULT_HASH_SIZE_MB = 64;
+
+    private final int maxDepth;
+    private final int moveTime;
+    private final int threadCount;
+    private final TranspositionTable table;
+    private ExecutorService executor;
+    private ExecutorService helperExecutor;
+    private volatile List<Search> searches = List.of();
+
+    /**
+     * Constructs a NativeEngine instance with the specified skill level,
+     * searching with as many threads as there are available processors.
+     *
+     * @param skillLevel The skill level of the engine (0 to 20).
+     */
+    public NativeEngine(int skillLevel) {
+        this(skillLevel, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a NativeEngine instance with the specified skill level
+     * and number of search threads, with the default transposition table size.
+     *
+     * @param skillLevel The skill level of the engine (0 to 20).
+     * @param threadCount The number of search threads, at least 1.
+     */
+    public NativeEngine(int skillLevel, int threadCount) {
+        this(skillLevel, threadCount, DEFAULT_HASH_SIZE_MB);
+    }
+
+    /**
+     * Constructs a NativeEngine instance with the specified skill level,
+     * number of search threads and transposition table size. The skill level
+     * sets the maximum search depth and the time per move.
+     *
+     * @param skillLevel The skill level of the engine (0 to 20).
+     * @param threadCount The number of search threads, at least 1.
+     * @param hashSizeMb The size of the transposition table, in megabytes.
+     */
+    public NativeEngine(int skillLevel, int threadCount, int hashSizeMb) {
+        int level = Math.min(Math.max(skillLevel, 0), 20);
+        this.maxDepth = 1 + level / 2;
+        this.moveTime = 100 * level + 500;
+        this.threadCount = Math.max(threadCount, 1);
+        this.table = new TranspositionTable(hashSizeMb);
+    }
+
+    /** Starts the engine. */
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(
+            createThreadFactory("native-engine")
+        );
+
+        if (threadCount > 1) {
+            helperExecutor = Executors.newFixedThreadPool(
+                threadCount - 1,
+                createThreadFactory("native-engine-helper")
+            );
+        }
+    }
+
+    /** Stops the engine, interrupting the running search. */
+    @Override
+    public void stop() {
+        searches.forEach(Search::stop);
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        if (helperExecutor != null) {
+            helperExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the best move for the current position on the board.
+     * With a game clock, the time of the search is allocated
+     * by the time manager, otherwise the skill level sets it.
+     *
+     * @param board The chess board.
+     * @param clock The game clock, or null if the game has no time limit.
+     * @return A CompletableFuture that will be completed with the best move.
+     */
+    @Override
+    public CompletableFuture<String> getBestMove(Board board, GameClock clock) {
+        Board boardCopy = board.makeCopy();
+        TimeManager timeManager = clock == null
+            ? TimeManager.ofMoveTime(moveTime)
+            : TimeManager.ofClock(clock, board.getSideToMove());
+
+        return CompletableFuture.supplyAsync(() -> {
+            int move = search(boardCopy, timeManager);
+
+            if (move == PackedMove.NONE) {
+                throw new CompletionException(
+                    new IllegalStateException("No legal moves in the position")
+                );
+            }
+
+            return PackedMove.toString(move);
+        }, executor);
+    }
+
+    /**
+     * Searches the position on the main thread and the helper threads,
+     * and returns the best move of the thread that completed
+     * the deepest iteration, preferring the main thread on ties.
+     */
+    private int search(Board board, TimeManager timeManager) {
+        long softLimit = timeManager.getSoftLimit();
+        long hardLimit = timeManager.getHardLimit();
+        table.newSearch();
+
+        List<Search> workers = new ArrayList<>();
+        workers.add(new Search(board, table));
+
+        for (int i = 1; i < threadCount; i++) {
+            workers.add(new Search(board.makeCopy(), table));
+        }
+
+        searches = workers;
+
+        List<Future<Integer>> helperResults = new ArrayList<>();
+        for (int i = 1; i < threadCount; i++) {
+            Search helper = workers.get(i);
+            int startDepth = 1 + i % 2;
+            helperResults.add(helperExecutor.submit(
+                () -> helper.search(startDepth, maxDepth, softLimit, hardLimit)
+            ));
+        }
+
+        Search mainSearch = workers.get(0);
+        int bestMove = mainSearch.search(1, maxDepth, softLimit, hardLimit);
+        int bestDepth = mainSearch.getCompletedDepth();
+        workers.forEach(Search::stop);
+
+        for (int i = 1; i < threadCount; i++) {
+            try {
+                int move = helperResults.get(i - 1).get();
+                int depth = workers.get(i).getCompletedDepth();
+
+                if (move != PackedMove.NONE && depth > bestDepth) {
+                    bestMove = move;
+                    bestDepth = depth;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }
+
+        searches = List.of();
+        return bestMove;
+    }
+
+    /** Creates a factory of daemon threads with the specified name. */
+    private static ThreadFactory createThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
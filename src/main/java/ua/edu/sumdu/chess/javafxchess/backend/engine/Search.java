@@ -0,0 +1,420 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import lombok.Getter;
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+/**
+ * Searches for the best move with iterative deepening
+ * negamax alpha-beta search and quiescence search on captures.
+ * The search works on its own board, which it changes
+ * in place and restores before returning. Several searches
+ * of the same position can run in parallel on copies of the board,
+ * sharing their results through the transposition table.
+ */
+public class Search {
+    /** The score of a checkmate at the root, reduced by the ply it happens at. */
+    public static final int MATE_SCORE = 100000;
+
+    private static final int INFINITY = 1000000;
+    private static final int MAX_PLY = 128;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final Board board;
+    private final TranspositionTable table;
+    private final Evaluator evaluator = new Evaluator();
+    private final int[][] killerMoves = new int[MAX_PLY][2];
+    private final int[][] moveBuffers = new int[MAX_PLY][Board.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][Board.MAX_MOVES];
+    private volatile boolean stopped;
+    private long deadline;
+    @Getter
+    private long nodes;
+    @Getter
+    private int completedDepth;
+    @Getter
+    private int bestScore;
+
+    /**
+     * Constructs a search on the specified board.
+     *
+     * @param board The chess board, which must not be changed
+     *              by anyone else while the search is running.
+     * @param table The transposition table to store search results in.
+     */
+    public Search(@NonNull Board board, @NonNull TranspositionTable table) {
+        this.board = board;
+        this.table = table;
+    }
+
+    /** Stops the search, which then returns the best move found so far. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Searches for the best move of the side to move with a soft and a hard
+     * time limit. The search aims to finish by the soft limit: an iteration
+     * usually takes longer than all the previous ones together, so no new
+     * iteration is started after half of the soft limit. The search is
+     * stopped at the hard limit. The only legal move is returned without searching.
+     * Helper threads start iterative deepening at different depths so that
+     * they do not all search the same nodes at the same time.
+     *
+     * @param startDepth The depth of the first iteration, in plies.
+     * @param maxDepth The maximum depth of the search, in plies.
+     * @param softLimit The time the search aims to finish by, in milliseconds.
+     * @param hardLimit The time after which the search is stopped, in milliseconds.
+     * @return The best move in the {@link PackedMove} encoding,
+     * or {@link PackedMove#NONE} if there are no legal moves.
+     */
+    public int search(int startDepth, int maxDepth, long softLimit, long hardLimit) {
+        PieceColor color = board.getSideToMove();
+        int[] rootMoves = moveBuffers[0];
+        int count = board.generateLegalMoves(color, rootMoves);
+
+        if (count <= 1) {
+            return count == 0 ? PackedMove.NONE : rootMoves[0];
+        }
+
+        long startTime = System.currentTimeMillis();
+        deadline = startTime + hardLimit;
+        scoreMoves(rootMoves, count, 0, getTableMove());
+        for (int i = 0; i < count; i++) {
+            pickMove(rootMoves, moveScores[0], i, count);
+        }
+        int bestMove = rootMoves[0];
+
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth && !stopped; depth++) {
+            int depthBestMove = PackedMove.NONE;
+            int alpha = -INFINITY;
+
+            for (int i = 0; i < count; i++) {
+                board.makeMove(rootMoves[i]);
+                int score = -negamax(color.getOpposite(), depth - 1, 1, -INFINITY, -alpha);
+                board.unmakeMove();
+
+                if (stopped) {
+                    break;
+                }
+
+                if (score > alpha) {
+                    alpha = score;
+                    depthBestMove = rootMoves[i];
+                }
+            }
+
+            // The previous best move is searched first, so a partially
+            // searched depth can only replace it with a better move
+            if (depthBestMove != PackedMove.NONE) {
+                bestMove = depthBestMove;
+                bestScore = alpha;
+            }
+
+            if (!stopped) {
+                completedDepth = depth;
+                table.store(board.getZobristKey(), bestMove,
+                    bestScore, depth, TranspositionTable.EXACT);
+            }
+
+            moveToFront(rootMoves, count, bestMove);
+
+            if (Math.abs(bestScore) >= MATE_SCORE - MAX_PLY
+                    || (System.currentTimeMillis() - startTime) * 2 >= softLimit) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Searches the position with negamax alpha-beta search.
+     *
+     * @return The score of the position for the specified color.
+     */
+    private int negamax(PieceColor color, int depth, int ply,
+                        int alpha, int beta) {
+        if (isTimeUp()) {
+            return 0;
+        }
+
+        if (board.getHalfmoveClock() >= 100 || board.getRepetitionCount() >= 2) {
+            return 0;
+        }
+
+        boolean isInCheck = board.isInCheck(color);
+
+        if (isInCheck) {
+            depth++;
+        }
+
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(color, ply, alpha, beta);
+        }
+
+        long key = board.getZobristKey();
+        long entry = table.probe(key);
+
+        if (entry != 0 && TranspositionTable.getDepth(entry) >= depth) {
+            int score = fromTableScore(TranspositionTable.getScore(entry), ply);
+            int bound = TranspositionTable.getBound(entry);
+
+            if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                    || bound == TranspositionTable.UPPER_BOUND && score <= alpha) {
+                return score;
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = board.generateLegalMoves(color, moves);
+
+        if (count == 0) {
+            return isInCheck ? -MATE_SCORE + ply : 0;
+        }
+
+        scoreMoves(moves, count, ply, TranspositionTable.getMove(entry));
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, moveScores[ply], i, count);
+            boolean isQuiet = isQuiet(move);
+            board.makeMove(move);
+            int score = -negamax(color.getOpposite(), depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+
+            if (score >= beta) {
+                if (isQuiet) {
+                    storeKillerMove(move, ply);
+                }
+
+                break;
+            }
+
+            alpha = Math.max(alpha, score);
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+            : bestScore > originalAlpha ? TranspositionTable.EXACT
+            : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTableScore(bestScore, ply), depth, bound);
+
+        return bestScore;
+    }
+
+    /**
+     * Searches captures and queen promotions until the position is quiet,
+     * so that the evaluation is not taken in the middle of an exchange.
+     *
+     * @return The score of the position for the specified color.
+     */
+    private int quiescence(PieceColor color, int ply, int alpha, int beta) {
+        if (isTimeUp()) {
+            return 0;
+        }
+
+        int standPat = evaluator.evaluate(board, color);
+
+        if (standPat >= beta || ply >= MAX_PLY - 1) {
+            return standPat;
+        }
+
+        alpha = Math.max(alpha, standPat);
+
+        int[] moves = moveBuffers[ply];
+        int generatedCount = board.generateLegalMoves(color, moves);
+        int count = 0;
+
+        for (int i = 0; i < generatedCount; i++) {
+            int move = moves[i];
+            PieceType promotionPieceType = PackedMove.getPromotionPieceType(move);
+
+            if (!isQuiet(move) && (promotionPieceType == null
+                    || promotionPieceType == PieceType.QUEEN)) {
+                moves[count++] = move;
+            }
+        }
+
+        scoreMoves(moves, count, ply, PackedMove.NONE);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(moves, moveScores[ply], i, count);
+            board.makeMove(move);
+            int score = -quiescence(color.getOpposite(), ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score >= beta) {
+                return score;
+            }
+
+            alpha = Math.max(alpha, score);
+        }
+
+        return alpha;
+    }
+
+    /** Gets the best move stored in the transposition table for the position. */
+    private int getTableMove() {
+        return TranspositionTable.getMove(table.probe(board.getZobristKey()));
+    }
+
+    /**
+     * Scores the moves so that the most promising ones are searched first:
+     * the best move from the transposition table, captures by the value
+     * of the victim and the attacker (MVV-LVA), then promotions,
+     * then killer moves, then the remaining quiet moves.
+     */
+    private void scoreMoves(int[] moves, int count, int ply, int tableMove) {
+        int[] scores = moveScores[ply];
+
+        for (int i = 0; i < count; i++) {
+            scores[i] = getMoveOrderScore(moves[i], ply, tableMove);
+        }
+    }
+
+    /**
+     * Moves the highest scored of the remaining moves to the index
+     * and returns it, so that moves are only sorted as far as searched.
+     */
+    private static int pickMove(int[] moves, int[] scores, int index, int count) {
+        int best = index;
+
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+
+        return move;
+    }
+
+    /** Moves the move to the front, keeping the order of the other moves. */
+    private static void moveToFront(int[] moves, int count, int move) {
+        int index = 0;
+        while (index < count && moves[index] != move) {
+            index++;
+        }
+
+        System.arraycopy(moves, 0, moves, 1, index);
+        moves[0] = move;
+    }
+
+    /** Gets the score used to order the move, higher is searched earlier. */
+    private int getMoveOrderScore(int move, int ply, int tableMove) {
+        if (move == tableMove) {
+            return INFINITY;
+        }
+
+        PieceType captured = getCapturedType(move);
+        int score = 0;
+
+        if (captured != null) {
+            Piece attacker = board.getPiece(PackedMove.getFrom(move) >>> 3, PackedMove.getFrom(move) & 7);
+            score += 10000 + 10 * Evaluator.getPieceValue(captured)
+                - Evaluator.getPieceValue(attacker.getType()) / 10;
+        }
+
+        PieceType promotionPieceType = PackedMove.getPromotionPieceType(move);
+        if (promotionPieceType != null) {
+            score += 5000 + Evaluator.getPieceValue(promotionPieceType);
+        }
+
+        if (score == 0) {
+            if (killerMoves[ply][0] == move) {
+                score = 2000;
+            } else if (killerMoves[ply][1] == move) {
+                score = 1000;
+            }
+        }
+
+        return score;
+    }
+
+    /** Gets the type of the piece captured by the move, or null if there is none. */
+    private PieceType getCapturedType(int move) {
+        if (PackedMove.getFlag(move) == PackedMove.EN_PASSANT) {
+            return PieceType.PAWN;
+        }
+
+        int to = PackedMove.getTo(move);
+        Piece captured = board.getPiece(to >>> 3, to & 7);
+        return captured == null ? null : captured.getType();
+    }
+
+    /** Checks if the move neither captures nor promotes. */
+    private boolean isQuiet(int move) {
+        return PackedMove.getFlag(move) != PackedMove.PROMOTION && getCapturedType(move) == null;
+    }
+
+    /** Remembers the quiet move that caused a beta cutoff at the ply. */
+    private void storeKillerMove(int move, int ply) {
+        if (killerMoves[ply][0] != move) {
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = move;
+        }
+    }
+
+    /**
+     * Converts a mate score relative to the current ply to one
+     * relative to the position, as stored in the transposition table.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -MATE_SCORE + MAX_PLY) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    /** Converts a mate score from the transposition table to the current ply. */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -MATE_SCORE + MAX_PLY) {
+            return score + ply;
+        }
+
+        return score;
+    }
+
+    /** Checks the clock every few nodes and stops the search if time is up. */
+    private boolean isTimeUp() {
+        nodes++;
+
+        if (nodes % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+
+        return stopped;
+    }
+}
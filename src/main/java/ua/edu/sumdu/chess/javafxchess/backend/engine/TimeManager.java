@@ -0,0 +1,73 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import lombok.Getter;
+import ua.edu.sumdu.chess.javafxchess.backend.GameClock;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+/**
+ * Allocates the time of a search from the game clock. The search aims
+ * to finish by the soft limit and stops early in simple positions,
+ * and it is stopped at the hard limit, which is a small part
+ * of the time left, so that the engine never runs out of time.
+ */
+@Getter
+final class TimeManager {
+    /** The number of moves the time left is spread over in sudden death. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /** The time the hard limit may exceed the soft limit by, as a factor. */
+    private static final int HARD_LIMIT_FACTOR = 3;
+    /** The shortest time of a search, in milliseconds. */
+    private static final long MIN_TIME = 10;
+
+    /** The time the search aims to finish by, in milliseconds. */
+    private final long softLimit;
+    /** The time after which the search is stopped, in milliseconds. */
+    private final long hardLimit;
+
+    /** Constructs a TimeManager with the specified limits. */
+    private TimeManager(long softLimit, long hardLimit) {
+        this.softLimit = softLimit;
+        this.hardLimit = hardLimit;
+    }
+
+    /**
+     * Creates a TimeManager for a fixed time per move.
+     *
+     * @param moveTime The time of the search, in milliseconds.
+     * @return The time manager with both limits equal to the move time.
+     */
+    static TimeManager ofMoveTime(long moveTime) {
+        return new TimeManager(moveTime, moveTime);
+    }
+
+    /**
+     * Creates a TimeManager for the move of the specified color. The time
+     * left, less {@link GameClock#MOVE_OVERHEAD}, is spread over the moves
+     * to go, and most of the increment is spent on every move.
+     * Neither limit exceeds the time left.
+     *
+     * @param clock The game clock.
+     * @param color The color of the side to move.
+     * @return The time manager with the limits of the move.
+     */
+    static TimeManager ofClock(GameClock clock, PieceColor color) {
+        long timeLeft = clock.getTime(color);
+        long minTime = Math.min(MIN_TIME, timeLeft);
+        long available = Math.max(timeLeft - GameClock.MOVE_OVERHEAD, minTime);
+        int movesToGo = clock.getMovesToGo() > 0
+            ? Math.min(clock.getMovesToGo(), DEFAULT_MOVES_TO_GO)
+            : DEFAULT_MOVES_TO_GO;
+
+        long softLimit = Math.min(
+            available / movesToGo + clock.getIncrement(color) * 3 / 4,
+            available
+        );
+        softLimit = Math.max(softLimit, minTime);
+        long hardLimit = Math.max(
+            softLimit,
+            Math.min(softLimit * HARD_LIMIT_FACTOR, available / 4)
+        );
+
+        return new TimeManager(softLimit, hardLimit);
+    }
+}
@@ -0,0 +1,237 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import java.util.Arrays;
+
+/**
+ * Represents a transposition table that stores search results
+ * by position key, shared by all search threads without locking.
+ * The table holds a power-of-two number of buckets of four entries,
+ * a bucket being 64 bytes, the size of a cache line. Every entry is
+ * two longs: the key XOR the data, and the data. A reader accepts
+ * an entry only if the two longs XOR back to its key, so entries torn
+ * by concurrent writes are seen as misses.
+ */
+public class TranspositionTable {
+    /** The bound type of an entry whose score is exact. */
+    public static final int EXACT = 1;
+    /** The bound type of an entry whose score is a lower bound (beta cutoff). */
+    public static final int LOWER_BOUND = 2;
+    /** The bound type of an entry whose score is an upper bound (fail low). */
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * Represents the policy of choosing the entry of a full bucket
+     * that a new search result replaces.
+     */
+    public enum ReplacementPolicy {
+        /** Replaces the first entry of the bucket. */
+        ALWAYS,
+        /**
+         * Replaces the entry searched to the lowest depth, counting
+         * entries from earlier searches as shallower the older they are.
+         */
+        DEPTH_AND_AGE
+    }
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 16;
+    private static final int MAX_ENTRY_COUNT = 1 << 29;
+    private static final int AGE_WEIGHT = 8;
+
+    private static final int MOVE_SHIFT = 0;
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int AGE_SHIFT = 58;
+    private static final int AGE_MASK = 0x3F;
+
+    private final long[] entries;
+    private final int bucketMask;
+    private final ReplacementPolicy replacementPolicy;
+    private volatile int age;
+
+    /**
+     * Constructs a transposition table of the specified size
+     * that replaces entries by depth and age.
+     *
+     * @param sizeMb The size of the table in megabytes, rounded down
+     *               to a power of two, at least 1.
+     */
+    public TranspositionTable(int sizeMb) {
+        this(sizeMb, ReplacementPolicy.DEPTH_AND_AGE);
+    }
+
+    /**
+     * Constructs a transposition table of the specified size
+     * and replacement policy.
+     *
+     * @param sizeMb The size of the table in megabytes, rounded down
+     *               to a power of two, at least 1.
+     * @param replacementPolicy The policy of replacing entries of full buckets.
+     */
+    public TranspositionTable(int sizeMb, ReplacementPolicy replacementPolicy) {
+        long requestedEntries = Math.max(sizeMb, 1) * (1L << 20) / ENTRY_BYTES;
+        int entryCount = (int) Long.highestOneBit(Math.min(requestedEntries, MAX_ENTRY_COUNT));
+
+        this.entries = new long[2 * entryCount];
+        this.bucketMask = entryCount / BUCKET_SIZE - 1;
+        this.replacementPolicy = replacementPolicy;
+    }
+
+    /**
+     * Starts a new search, so that entries stored by
+     * earlier searches become older and are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /** Removes all entries from the table. */
+    public void clear() {
+        Arrays.fill(entries, 0);
+        age = 0;
+    }
+
+    /**
+     * Gets the size of the table.
+     *
+     * @return The number of entries the table can hold.
+     */
+    public int getCapacity() {
+        return entries.length / 2;
+    }
+
+    /**
+     * Gets how full the table is with entries of the current search,
+     * estimated from the first thousand entries.
+     *
+     * @return The fill rate of the table in permille.
+     */
+    public int getHashfull() {
+        int sampleSize = Math.min(1000, getCapacity());
+        int used = 0;
+
+        for (int i = 0; i < sampleSize; i++) {
+            long data = entries[2 * i + 1];
+
+            if (data != 0 && getAge(data) == age) {
+                used++;
+            }
+        }
+
+        return used * 1000 / sampleSize;
+    }
+
+    /**
+     * Gets the entry stored for the position key.
+     *
+     * @param key The position key.
+     * @return The packed entry data, or 0 if there is no entry for the key.
+     */
+    public long probe(long key) {
+        int bucket = getBucketIndex(key);
+
+        for (int i = bucket; i < bucket + 2 * BUCKET_SIZE; i += 2) {
+            long data = entries[i + 1];
+
+            if ((entries[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Stores a search result for the position key. An entry for the same key
+     * is replaced unless it is from the current search, deeper and not exact;
+     * otherwise the replacement policy chooses the entry to replace.
+     *
+     * @param key The position key.
+     * @param move The encoded best move, or 0 if there is none.
+     * @param score The score of the position.
+     * @param depth The depth the position was searched to.
+     * @param bound The bound type of the score.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int bucket = getBucketIndex(key);
+        int currentAge = age;
+        int replaced = bucket;
+        int replacedWorth = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + 2 * BUCKET_SIZE; i += 2) {
+            long data = entries[i + 1];
+
+            if (data == 0) {
+                if (replacedWorth != Integer.MIN_VALUE) {
+                    replaced = i;
+                    replacedWorth = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+
+            if ((entries[i] ^ data) == key) {
+                if (bound != EXACT && getAge(data) == currentAge
+                        && getDepth(data) > depth + 2) {
+                    return;
+                }
+
+                if (move == 0) {
+                    move = getMove(data);
+                }
+
+                replaced = i;
+                break;
+            }
+
+            if (replacementPolicy == ReplacementPolicy.DEPTH_AND_AGE) {
+                int worth = getDepth(data)
+                    - AGE_WEIGHT * ((currentAge - getAge(data)) & AGE_MASK);
+
+                if (worth < replacedWorth) {
+                    replaced = i;
+                    replacedWorth = worth;
+                }
+            }
+        }
+
+        long data = (long) (move & 0xFFFF) << MOVE_SHIFT
+            | (score & 0xFFFFFFFFL) << SCORE_SHIFT
+            | (long) (depth & 0xFF) << DEPTH_SHIFT
+            | (long) bound << BOUND_SHIFT
+            | (long) currentAge << AGE_SHIFT;
+
+        entries[replaced] = key ^ data;
+        entries[replaced + 1] = data;
+    }
+
+    /** Gets the encoded best move of the entry, 0 if there is none. */
+    public static int getMove(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & 0xFFFF;
+    }
+
+    /** Gets the score of the entry. */
+    public static int getScore(long entry) {
+        return (int) (entry >>> SCORE_SHIFT);
+    }
+
+    /** Gets the depth the position of the entry was searched to. */
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /** Gets the bound type of the score of the entry. */
+    public static int getBound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /** Gets the age of the search that stored the entry. */
+    private static int getAge(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** Gets the index of the first long of the bucket for the position key. */
+    private int getBucketIndex(long key) {
+        return (int) (key & bucketMask) * 2 * BUCKET_SIZE;
+    }
+}
@@ -1,14 +1,10 @@
 package ua.edu.sumdu.chess.javafxchess.backend.moves;
 
-import lombok.NonNull;
-import ua.edu.sumdu.chess.javafxchess.backend.Board;
-import ua.edu.sumdu.chess.javafxchess.backend.Direction;
 import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
 
 /**
  * Represents a castling move in the chess game.
+ * The move goes from the king's square to the square the king castles to.
  */
 public class CastlingMove extends Move {
     /** Constructs a castling move with the
@@ -18,51 +14,7 @@ public class CastlingMove extends Move {
     }
 
     @Override
-    protected void doExecute(Board board) {
-        Direction dir = getCastlingDir();
-        int rookCol = dir == Direction.EAST ? 7 : 0;
-
-        Piece king = board.getPiece(from);
-        Piece rook = board.getPiece(from.row(), rookCol);
-
-        Position newRookPos = from.add(dir);
-
-        board.setPiece(to, king);
-        board.setPiece(from, null);
-        king.setHasMoved(true);
-
-        board.setPiece(newRookPos, rook);
-        board.setPiece(from.row(), rookCol, null);
-        rook.setHasMoved(true);
-    }
-
-    @Override
-    public boolean isLegal(@NonNull Board board) {
-        PieceColor currentColor = board.getPiece(from).getColor();
-
-        if (board.isInCheck(currentColor)) {
-            return false;
-        }
-
-        Direction dir = getCastlingDir();
-        Board copiedBoard = board.makeCopy();
-        RegularMove oneSquareMove = new RegularMove(from, from.add(dir));
-        oneSquareMove.execute(copiedBoard);
-
-        // passed through check
-        if (copiedBoard.isInCheck(currentColor)) {
-            return false;
-        }
-
-        copiedBoard = board.makeCopy();
-        execute(copiedBoard);
-        return !copiedBoard.isInCheck(currentColor);
-    }
-
-    /** Gets the direction of the castling move */
-    private Direction getCastlingDir() {
-        return (to.col() - from.col()) > 0
-            ? Direction.EAST
-            : Direction.WEST;
+    public int encode() {
+        return PackedMove.encode(from.square(), to.square(), PackedMove.CASTLING);
     }
 }
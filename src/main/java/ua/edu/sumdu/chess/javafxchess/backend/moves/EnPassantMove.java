@@ -1,8 +1,6 @@
 package ua.edu.sumdu.chess.javafxchess.backend.moves;
 
-import ua.edu.sumdu.chess.javafxchess.backend.Board;
 import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.Piece;
 
 /**
  * Represents an en passant move in the chess game.
@@ -15,13 +13,7 @@ public class EnPassantMove extends Move {
     }
 
     @Override
-    protected void doExecute(Board board) {
-        Piece movedPiece = board.getPiece(from);
-        board.setPiece(to, movedPiece);
-        board.setPiece(from, null);
-        movedPiece.setHasMoved(true);
-
-        Position capturedPos = new Position(from.row(), to.col());
-        board.setPiece(capturedPos, null);
+    public int encode() {
+        return PackedMove.encode(from.square(), to.square(), PackedMove.EN_PASSANT);
     }
 }
@@ -2,13 +2,13 @@ package ua.edu.sumdu.chess.javafxchess.backend.moves;
 
 import ua.edu.sumdu.chess.javafxchess.backend.Board;
 import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
 import lombok.Getter;
 import lombok.NonNull;
 
 /**
  * Represents a move in the chess game.
+ * Moves are generated and executed by the board in their
+ * {@link PackedMove} encoding, move objects are decoded views of it.
  */
 @Getter
 public abstract class Move {
@@ -27,68 +27,42 @@ public abstract class Move {
     }
 
     /**
-     * Performs pre-execution tasks before executing the move.
+     * Encodes the move.
      *
-     * @param board The chessboard.
-     */
-    private void preExecute(Board board) {
-        board.setLastMove(this);
-
-        if (board.getPiece(from).getColor() == PieceColor.BLACK) {
-            board.setFullmoveCounter(board.getFullmoveCounter() + 1);
-        }
-
-        if (board.getPiece(from).getType() == PieceType.PAWN
-                || board.getPiece(to) != null) {
-            board.setHalfmoveClock(0);
-        } else {
-            board.setHalfmoveClock(board.getHalfmoveClock() + 1);
-        }
-    }
-
-    /**
-     * Performs post-execution tasks after executing the move.
-     *
-     * @param board The chessboard.
-     */
-    private void postExecute(Board board) {
-        if (!(this instanceof RegularMove)
-                || board.getPiece(to).getType() == PieceType.PAWN) {
-            board.getRepetitionFENHistory().clear();
-        } else {
-            board.getRepetitionFENHistory().add(board.getFENWithoutCounters());
-        }
-    }
-
-    /**
-     * Executes the move on the chessboard.
-     *
-     * @param board The chessboard.
+     * @return The move in the {@link PackedMove} encoding.
      */
-    protected abstract void doExecute(Board board);
+    public abstract int encode();
 
     /**
      * Executes the move on the chessboard
      * with all dependent tasks.
      *
      * @param board The chessboard.
+     * @return The record to pass to {@link Board#undo} to take the move back.
      */
-    public void execute(@NonNull Board board) {
-        preExecute(board);
-        doExecute(board);
-        postExecute(board);
+    public MoveUndo execute(@NonNull Board board) {
+        board.makeMove(encode());
+        return new MoveUndo(this, board.getPly());
     }
 
     /**
      * Checks if the move is legal on the given chessboard.
+     * The move is executed in place and taken back afterwards.
      *
      * @param board The chessboard.
      * @return True if the move is legal, otherwise false.
      */
     public boolean isLegal(@NonNull Board board) {
-        PieceColor currentColor = board.getPiece(from).getColor();
-        Board copiedBoard = board.makeCopy();
-        execute(copiedBoard);
-        return !copiedBoard.isInCheck(currentColor);
+        return board.isLegal(encode());
+    }
+
+    /**
+     * Gets the move in long algebraic notation, e.g. e2e4.
+     *
+     * @return The move in long algebraic notation.
+     */
+    @Override
+    public String toString() {
+        return PackedMove.toString(encode());
     }
 }
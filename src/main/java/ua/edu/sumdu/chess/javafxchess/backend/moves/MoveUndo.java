@@ -0,0 +1,26 @@
+package ua.edu.sumdu.chess.javafxchess.backend.moves;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Identifies a move executed on a chessboard, so that it can be taken back.
+ * The state needed to take the move back is kept by the board itself.
+ */
+@Getter
+public class MoveUndo {
+    private final Move move;
+    private final int ply;
+
+    /**
+     * Constructs a move undo record.
+     *
+     * @param move The executed move.
+     * @param ply The number of moves executed on the board
+     *            and not taken back, including the move.
+     */
+    public MoveUndo(@NonNull Move move, int ply) {
+        this.move = move;
+        this.ply = ply;
+    }
+}
@@ -0,0 +1,122 @@
+package ua.edu.sumdu.chess.javafxchess.backend.moves;
+
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Position;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
+
+/**
+ * Encodes moves in 16 bits of an int, so that move generation and search
+ * can work on primitive arrays instead of move objects.
+ * Bits 0-5 hold the 'from' square, bits 6-11 the 'to' square,
+ * bits 12-13 the move flag and bits 14-15 the index of the promotion
+ * piece type in {@link PromotionMove#PIECE_TYPES}.
+ * No real move is encoded as 0, which therefore means "no move".
+ */
+public final class PackedMove {
+    /** No move. */
+    public static final int NONE = 0;
+
+    /** The flag of a regular move. */
+    public static final int NORMAL = 0;
+    /** The flag of a promotion move. */
+    public static final int PROMOTION = 1;
+    /** The flag of an en passant move. */
+    public static final int EN_PASSANT = 2;
+    /** The flag of a castling move. */
+    public static final int CASTLING = 3;
+
+    private static final int TO_SHIFT = 6;
+    private static final int FLAG_SHIFT = 12;
+    private static final int PROMOTION_SHIFT = 14;
+
+    private PackedMove() { }
+
+    /**
+     * Encodes a move that is not a promotion.
+     *
+     * @param from The square the move starts at.
+     * @param to The square the move ends at.
+     * @param flag The move flag.
+     * @return The encoded move.
+     */
+    public static int encode(int from, int to, int flag) {
+        return from | to << TO_SHIFT | flag << FLAG_SHIFT;
+    }
+
+    /**
+     * Encodes a promotion move.
+     *
+     * @param from The square the move starts at.
+     * @param to The square the move ends at.
+     * @param pieceType The type of piece the pawn is promoted to.
+     * @return The encoded move.
+     */
+    public static int encodePromotion(int from, int to, @NonNull PieceType pieceType) {
+        return encode(from, to, PROMOTION)
+            | PromotionMove.PIECE_TYPES.indexOf(pieceType) << PROMOTION_SHIFT;
+    }
+
+    /** Gets the square the move starts at. */
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    /** Gets the square the move ends at. */
+    public static int getTo(int move) {
+        return move >>> TO_SHIFT & 0x3F;
+    }
+
+    /** Gets the flag of the move. */
+    public static int getFlag(int move) {
+        return move >>> FLAG_SHIFT & 0x3;
+    }
+
+    /** Gets the promotion piece type of the move, or null if it is not a promotion. */
+    public static PieceType getPromotionPieceType(int move) {
+        if (getFlag(move) != PROMOTION) {
+            return null;
+        }
+
+        return PromotionMove.PIECE_TYPES.get(move >>> PROMOTION_SHIFT & 0x3);
+    }
+
+    /**
+     * Decodes the move into a move object, e.g. to show it in the UI.
+     *
+     * @param move The encoded move.
+     * @return The move object, or null if the move is {@link #NONE}.
+     */
+    public static Move toMove(int move) {
+        if (move == NONE) {
+            return null;
+        }
+
+        Position from = Position.ofSquare(getFrom(move));
+        Position to = Position.ofSquare(getTo(move));
+
+        return switch (getFlag(move)) {
+            case PROMOTION -> new PromotionMove(from, to, getPromotionPieceType(move));
+            case EN_PASSANT -> new EnPassantMove(from, to);
+            case CASTLING -> new CastlingMove(from, to);
+            default -> new RegularMove(from, to);
+        };
+    }
+
+    /**
+     * Gets the move in long algebraic notation, e.g. e2e4 or e7e8q.
+     *
+     * @param move The encoded move.
+     * @return The move in long algebraic notation.
+     */
+    public static String toString(int move) {
+        String str = Position.ofSquare(getFrom(move)).toString()
+            + Position.ofSquare(getTo(move));
+        PieceType promotionPieceType = getPromotionPieceType(move);
+
+        if (promotionPieceType != null) {
+            str += PromotionMove.getSymbol(promotionPieceType);
+        }
+
+        return str;
+    }
+}
@@ -1,59 +1,66 @@
 package ua.edu.sumdu.chess.javafxchess.backend.moves;
 
-import ua.edu.sumdu.chess.javafxchess.backend.Board;
 import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.pieces.*;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceType;
 import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
 
 /**
  * Represents a promotion move in the chess game.
  */
 @Getter
 public class PromotionMove extends Move {
-    private PieceType promotionPieceType = PieceType.QUEEN;
+    /** The piece types a pawn can be promoted to. */
+    public static final List<PieceType> PIECE_TYPES = List.of(
+        PieceType.QUEEN,
+        PieceType.ROOK,
+        PieceType.BISHOP,
+        PieceType.KNIGHT
+    );
+
+    private final PieceType promotionPieceType;
 
-    /** Constructs a promotion move with the
+    /** Constructs a promotion move to a queen with the
      * specified 'from' and 'to' positions. */
     public PromotionMove(Position from, Position to) {
-        super(from, to);
+        this(from, to, PieceType.QUEEN);
     }
 
     /**
-     * Sets the promotion piece type.
+     * Constructs a promotion move with the specified 'from' and 'to'
+     * positions and promotion piece type.
      *
-     * @param pieceType The type of piece for promotion.
+     * @param from The starting position of the move.
+     * @param to The destination position of the move.
+     * @param promotionPieceType The type of piece for promotion.
+     * @throws IllegalArgumentException If a pawn cannot be promoted to the piece type.
      */
-    public void setPromotionPieceType(PieceType pieceType) {
-        if (pieceType == PieceType.QUEEN
-                || pieceType == PieceType.ROOK
-                || pieceType == PieceType.BISHOP
-                || pieceType == PieceType.KNIGHT) {
-            this.promotionPieceType = pieceType;
+    public PromotionMove(Position from, Position to, @NonNull PieceType promotionPieceType) {
+        super(from, to);
+
+        if (!PIECE_TYPES.contains(promotionPieceType)) {
+            throw new IllegalArgumentException(
+                "Cannot promote to " + promotionPieceType);
         }
+
+        this.promotionPieceType = promotionPieceType;
     }
 
     /**
-     * Creates the promotion piece based on the specified color.
+     * Gets the symbol of the promotion piece type in long algebraic notation.
      *
-     * @param color The color of the promotion piece.
-     * @return The promotion piece.
+     * @param pieceType The promotion piece type.
+     * @return The lowercase symbol of the piece type, e.g. q or n.
      */
-    private Piece getPromotionPiece(PieceColor color) {
-        return switch (promotionPieceType) {
-            case ROOK -> new Rook(color);
-            case BISHOP -> new Bishop(color);
-            case KNIGHT -> new Knight(color);
-            default -> new Queen(color);
-        };
+    public static char getSymbol(PieceType pieceType) {
+        return pieceType == PieceType.KNIGHT
+            ? 'n' : Character.toLowerCase(pieceType.name().charAt(0));
     }
 
     @Override
-    protected void doExecute(Board board) {
-        Piece pawn = board.getPiece(from);
-        Piece promotionPiece = getPromotionPiece(pawn.getColor());
-        promotionPiece.setHasMoved(true);
-
-        board.setPiece(to, promotionPiece);
-        board.setPiece(from, null);
+    public int encode() {
+        return PackedMove.encodePromotion(from.square(), to.square(), promotionPieceType);
     }
 }
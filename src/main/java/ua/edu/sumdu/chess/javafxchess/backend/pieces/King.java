@@ -1,120 +1,102 @@
 package ua.edu.sumdu.chess.javafxchess.backend.pieces;
 
 import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Attacks;
 import ua.edu.sumdu.chess.javafxchess.backend.Board;
 import ua.edu.sumdu.chess.javafxchess.backend.Direction;
-import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.RegularMove;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.CastlingMove;
-
-import java.util.ArrayList;
-import java.util.List;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
 
 /**
  * Represents a king piece in the chess game.
  */
 public class King extends Piece {
-    private static final Direction[] DIRS = {
-        Direction.NORTH,
-        Direction.NORTH_EAST,
-        Direction.EAST,
-        Direction.SOUTH_EAST,
-        Direction.SOUTH,
-        Direction.SOUTH_WEST,
-        Direction.WEST,
-        Direction.NORTH_WEST
-    };
-
     /** Constructs a king piece with the specified color. */
     public King(PieceColor color) {
         super(color, PieceType.KING);
     }
 
     @Override
-    public List<Move> getMoves(@NonNull Board board, @NonNull Position from) {
-        List<Move> moves = new ArrayList<>();
-
-        addRegularMoves(board, from, moves);
-        addCastlingMoves(board, from, moves);
-
-        return moves;
+    public int generateMoves(@NonNull Board board, int from, long targets,
+                             int[] moves, int count) {
+        count = generateRegularMoves(board, from, targets, moves, count);
+        return generateCastlingMoves(board, from, moves, count);
     }
 
     /**
-     * Adds regular moves (non-castling) for the king piece from the specified position.
+     * Generates regular moves (non-castling) for the king piece from the specified square.
      *
      * @param board The chessboard.
-     * @param from The position of the king piece.
-     * @param moves The list to which moves are added.
+     * @param from The square of the king piece.
+     * @param targets The bitboard of the squares moves may end on.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    private void addRegularMoves(Board board, Position from, List<Move> moves) {
-        for (Direction dir : DIRS) {
-            Position to = from.add(dir);
-
-            if (!board.isOnBoard(to)) {
-                continue;
-            }
-
-            Piece toPiece = board.getPiece(to);
-            if (toPiece != null && toPiece.getColor() == color) {
-                continue;
-            }
-
-            moves.add(new RegularMove(from, to));
-        }
+    private int generateRegularMoves(Board board, int from, long targets,
+                                     int[] moves, int count) {
+        return addMoves(from, Attacks.kingAttacks(from) & ~board.getOccupancy(color) & targets,
+            moves, count);
     }
 
     /**
-     * Adds castling moves for the king piece from the specified position.
+     * Generates castling moves for the king piece from the specified square,
+     * for the castling rights of its color on the board. Whether the king
+     * is in check or passes through check is left to the legality check.
      *
      * @param board The chessboard.
-     * @param from The position of the king piece.
-     * @param moves The list to which moves are added.
+     * @param from The square of the king piece.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    private void addCastlingMoves(Board board, Position from, List<Move> moves) {
-        if (hasMoved) return;
+    private int generateCastlingMoves(Board board, int from, int[] moves, int count) {
+        int castlingRights = board.getCastlingRights();
+
+        if (color == PieceColor.WHITE) {
+            castlingRights &= Board.WHITE_KINGSIDE | Board.WHITE_QUEENSIDE;
+        } else {
+            castlingRights &= Board.BLACK_KINGSIDE | Board.BLACK_QUEENSIDE;
+        }
+
+        if (castlingRights == 0 || from != (color == PieceColor.WHITE ? 60 : 4)) return count;
 
         for (Direction hDir : Direction.HORIZONTAL_DIRS) {
-            if (canCastle(board, from, hDir)) {
-                Position to = from.add(hDir).add(hDir);
-                moves.add(new CastlingMove(from, to));
+            int colDelta = hDir.getColDelta();
+            int right = colDelta > 0
+                ? Board.WHITE_KINGSIDE | Board.BLACK_KINGSIDE
+                : Board.WHITE_QUEENSIDE | Board.BLACK_QUEENSIDE;
+
+            if ((castlingRights & right) != 0 && canCastle(board, from, colDelta)) {
+                moves[count++] = PackedMove.encode(from, from + 2 * colDelta, PackedMove.CASTLING);
             }
         }
+
+        return count;
     }
 
     /**
-     * Checks if the king piece can castle in the specified direction from the given position.
+     * Checks if the king piece can castle in the specified direction from the given square.
      *
      * @param board The chessboard.
-     * @param from The position of the king piece.
-     * @param dir The direction in which to check for castling.
+     * @param from The square of the king piece.
+     * @param colDelta The column delta of the castling direction.
      * @return True if the king can castle in the specified direction, otherwise false.
      */
-    private boolean canCastle(Board board, Position from, Direction dir) {
-        int rookCol = dir == Direction.EAST ? 7 : 0;
-        Position rookPos = new Position(from.row(), rookCol);
-        Piece rook = board.getPiece(rookPos);
+    private boolean canCastle(Board board, int from, int colDelta) {
+        int row = from >>> 3;
+        int rookCol = colDelta > 0 ? 7 : 0;
+        Piece rook = board.getPiece(row, rookCol);
 
-        if (rook == null || rook.hasMoved) {
+        if (rook == null || rook.getType() != PieceType.ROOK || rook.getColor() != color) {
             return false;
         }
 
-        for (Position pos = from.add(dir);
-             !pos.equals(rookPos);
-             pos = pos.add(dir)) {
-            if (board.getPiece(pos) != null) {
+        for (int col = (from & 7) + colDelta; col != rookCol; col += colDelta) {
+            if (board.getPiece(row, col) != null) {
                 return false;
             }
         }
 
         return true;
     }
-
-    @Override
-    public Piece makeCopy() {
-        King k = new King(color);
-        k.hasMoved = hasMoved;
-        return k;
-    }
 }
@@ -1,16 +1,11 @@
 package ua.edu.sumdu.chess.javafxchess.backend.pieces;
 
 import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Attacks;
 import ua.edu.sumdu.chess.javafxchess.backend.Board;
 import ua.edu.sumdu.chess.javafxchess.backend.Direction;
-import ua.edu.sumdu.chess.javafxchess.backend.Position;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
 import ua.edu.sumdu.chess.javafxchess.backend.moves.PromotionMove;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.RegularMove;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.EnPassantMove;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents a pawn piece in the chess game.
@@ -25,134 +20,128 @@ public class Pawn extends Piece {
     }
 
     @Override
-    public List<Move> getMoves(@NonNull Board board, @NonNull Position from) {
-        List<Move> moves = new ArrayList<>();
-
-        boolean isPreLastRow = from.row() == (dir == Direction.NORTH ? 1 : 6);
-        boolean isEnPassantRow = from.row() == (dir == Direction.NORTH ? 3 : 4);
+    public int generateMoves(@NonNull Board board, int from, long targets,
+                             int[] moves, int count) {
+        int row = from >>> 3;
+        boolean isInitialRow = row == (dir == Direction.NORTH ? 6 : 1);
+        boolean isEnPassantRow = row == (dir == Direction.NORTH ? 3 : 4);
 
-        if (!isPreLastRow) {
-            addOneSquareMoves(board, from, moves);
-        } else {
-            addPromotionMoves(board, from, moves);
-        }
+        count = generateOneSquareMoves(board, from, targets, moves, count);
 
-        if (!hasMoved) {
-            addTwoSquaresMove(board, from, moves);
+        if (isInitialRow) {
+            count = generateTwoSquaresMove(board, from, targets, moves, count);
         }
 
         if (isEnPassantRow) {
-            addEnPassantMove(board, from, moves);
+            count = generateEnPassantMove(board, from, moves, count);
         }
 
-        return moves;
+        return count;
     }
 
     /**
-     * Gets the possible positions for a one-square move.
+     * Generates the one-square moves: the move forward and the diagonal
+     * captures, as promotions if the pawn reaches the last row.
      *
      * @param board The chessboard.
-     * @param from The position of the pawn.
-     * @return A list of possible positions for a one-square move.
+     * @param from The square of the pawn.
+     * @param targets The bitboard of the squares moves may end on.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    private List<Position> getOneSquarePositions(Board board, Position from) {
-        List<Position> positions = new ArrayList<>();
+    private int generateOneSquareMoves(Board board, int from, long targets,
+                                       int[] moves, int count) {
+        int to = from + dir.getSquareDelta();
 
-        Position oneForwardPos = from.add(dir);
+        if (to < 0 || to > 63) {
+            return count;
+        }
 
-        if (board.getPiece(oneForwardPos) == null) {
-            positions.add(oneForwardPos);
+        if (board.getPiece(to >>> 3, to & 7) == null && (targets >>> to & 1) != 0) {
+            count = addMove(from, to, moves, count);
         }
 
-        for (Direction hDir : Direction.HORIZONTAL_DIRS) {
-            Position diagPos = oneForwardPos.add(hDir);
+        long captures = Attacks.pawnAttacks(color, from)
+            & board.getOccupancy(color.getOpposite()) & targets;
 
-            if (board.getPiece(diagPos) != null
-                    && board.getPiece(diagPos).getColor() != color) {
-                positions.add(diagPos);
-            }
+        for (; captures != 0; captures &= captures - 1) {
+            count = addMove(from, Long.numberOfTrailingZeros(captures), moves, count);
         }
 
-        return positions;
+        return count;
     }
 
     /**
-     * Adds regular one-square moves to the list of moves.
-     *
-     * @param board The chessboard.
-     * @param from The position of the pawn.
-     * @param moves The list of moves to which regular moves are added.
+     * Adds a one-square move to the move buffer, once for every
+     * promotion piece type if the move ends on the last row.
      */
-    private void addOneSquareMoves(Board board, Position from, List<Move> moves) {
-        moves.addAll(getOneSquarePositions(board, from).stream()
-            .map(to -> new RegularMove(from, to))
-            .toList());
-    }
+    private int addMove(int from, int to, int[] moves, int count) {
+        int toRow = to >>> 3;
 
-    /**
-     * Adds promotion moves to the list of moves.
-     *
-     * @param board The chessboard.
-     * @param from The position of the pawn.
-     * @param moves The list of moves to which promotion moves are added.
-     */
-    private void addPromotionMoves(Board board, Position from, List<Move> moves) {
-        moves.addAll(getOneSquarePositions(board, from).stream()
-            .map(to -> new PromotionMove(from, to))
-            .toList());
+        if (toRow == 0 || toRow == 7) {
+            for (PieceType pieceType : PromotionMove.PIECE_TYPES) {
+                moves[count++] = PackedMove.encodePromotion(from, to, pieceType);
+            }
+        } else {
+            moves[count++] = PackedMove.encode(from, to, PackedMove.NORMAL);
+        }
+
+        return count;
     }
 
     /**
-     * Adds a two-squares move to the list of moves if available.
+     * Generates a two-squares move if available.
      *
      * @param board The chessboard.
-     * @param from The position of the pawn.
-     * @param moves The list of moves to which the two-squares move is added.
+     * @param from The square of the pawn.
+     * @param targets The bitboard of the squares moves may end on.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    private void addTwoSquaresMove(Board board, Position from, List<Move> moves) {
-        Position oneForwardPos = from.add(dir);
-        Position twoForwardPos = oneForwardPos.add(dir);
-
-        if (board.getPiece(oneForwardPos) == null
-                && board.getPiece(twoForwardPos) == null) {
-            moves.add(new RegularMove(from, twoForwardPos));
+    private int generateTwoSquaresMove(Board board, int from, long targets,
+                                       int[] moves, int count) {
+        int oneForward = from + dir.getSquareDelta();
+        int twoForward = oneForward + dir.getSquareDelta();
+
+        if (twoForward >= 0 && twoForward <= 63
+                && board.getPiece(oneForward >>> 3, oneForward & 7) == null
+                && board.getPiece(twoForward >>> 3, twoForward & 7) == null
+                && (targets >>> twoForward & 1) != 0) {
+            moves[count++] = PackedMove.encode(from, twoForward, PackedMove.NORMAL);
         }
+
+        return count;
     }
 
     /**
-     * Adds an en passant move to the list of moves if available.
+     * Generates an en passant move if available, i.e. the en passant
+     * column of the board is next to this pawn and holds an opponent's pawn.
      *
      * @param board The chessboard.
-     * @param from The position of the pawn.
-     * @param moves The list of moves to which the en passant move is added.
+     * @param from The square of the pawn.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    private void addEnPassantMove(Board board, Position from, List<Move> moves) {
-        Position oneForwardPos = from.add(dir);
-
-        for (Direction hDir : Direction.HORIZONTAL_DIRS) {
-            Position posToTheSide = from.add(hDir);
-            Piece pieceToTheSide = board.getPiece(posToTheSide);
-
-            if (pieceToTheSide != null
-                    && pieceToTheSide.getType() == PieceType.PAWN
-                    && pieceToTheSide.getColor() != color
-                    && board.getLastMove().getTo().equals(posToTheSide)
-                    && getMoveRowDelta(board.getLastMove()) == 2) {
-                moves.add(new EnPassantMove(from, oneForwardPos.add(hDir)));
-                return;
-            }
+    private int generateEnPassantMove(Board board, int from, int[] moves, int count) {
+        int enPassantFile = board.getEnPassantFile();
+
+        if (enPassantFile == -1 || Math.abs(enPassantFile - (from & 7)) != 1) {
+            return count;
         }
-    }
 
-    /** Gets the row delta of a move. */
-    private int getMoveRowDelta(Move move) {
-        return Math.abs(move.getTo().row() - move.getFrom().row());
-    }
+        int sideSquare = (from & ~7) | enPassantFile;
+        Piece pieceToTheSide = board.getPiece(sideSquare >>> 3, enPassantFile);
 
-    @Override
-    public Piece makeCopy() {
-        Pawn p = new Pawn(color);
-        p.hasMoved = hasMoved;
-        return p;
+        if (pieceToTheSide != null
+                && pieceToTheSide.getType() == PieceType.PAWN
+                && pieceToTheSide.getColor() != color) {
+            int to = sideSquare + dir.getSquareDelta();
+            moves[count++] = PackedMove.encode(from, to, PackedMove.EN_PASSANT);
+        }
+
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -1,26 +1,37 @@
 package ua.edu.sumdu.chess.javafxchess.backend.pieces;
 
 import ua.edu.sumdu.chess.javafxchess.backend.Board;
-import ua.edu.sumdu.chess.javafxchess.backend.Direction;
 import ua.edu.sumdu.chess.javafxchess.backend.Position;
 import ua.edu.sumdu.chess.javafxchess.backend.moves.Move;
-import ua.edu.sumdu.chess.javafxchess.backend.moves.RegularMove;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.NonNull;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Represents a piece on the chessboard.
+ * Represents a piece on the chessboard. Pieces are immutable, so the
+ * instances returned by {@link #of} are shared by all boards.
  */
 @Getter
 public abstract class Piece {
+    /** The maximum number of moves a single piece can have, promotions included. */
+    public static final int MAX_MOVES = 32;
+
     protected final PieceColor color;
     protected final PieceType type;
-    @Setter
-    protected boolean hasMoved;
+
+    private static final Piece[][] PIECES = new Piece[2][];
+
+    static {
+        for (PieceColor color : PieceColor.values()) {
+            PIECES[color.ordinal()] = new Piece[] {
+                new Pawn(color), new Bishop(color), new Knight(color),
+                new Rook(color), new Queen(color), new King(color)
+            };
+        }
+    }
 
     /**
      * Constructs a piece with the specified color and type.
@@ -35,62 +46,72 @@ public abstract class Piece {
     }
 
     /**
-     * Gets the possible moves for the piece from the specified position.
+     * Gets the shared piece of the specified color and type.
      *
-     * @param board The chessboard.
-     * @param from The position of the piece.
-     * @return A list of possible moves.
+     * @param color The color of the piece.
+     * @param type The type of the piece.
+     * @return The piece.
      */
-    public abstract List<Move> getMoves(Board board, Position from);
+    public static Piece of(@NonNull PieceColor color, @NonNull PieceType type) {
+        return PIECES[color.ordinal()][type.ordinal()];
+    }
 
     /**
-     * Gets the possible moves in specified directions from the current position.
+     * Generates the possible moves for the piece from the specified square
+     * into the move buffer, in the {@link PackedMove} encoding.
+     * A promotion is generated once for every promotion piece type.
+     * Only moves ending on the target squares are generated, except for
+     * en passant and castling moves, which are left to the caller.
      *
      * @param board The chessboard.
-     * @param from The current position of the piece.
-     * @param dirs The directions to consider.
-     * @return A list of possible moves in the specified directions.
+     * @param from The square of the piece.
+     * @param targets The bitboard of the squares moves may end on.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after generation.
      */
-    protected List<Move> getMovesInDirs(Board board, Position from,
-                                        Direction[] dirs) {
-        List<Move> moves = new ArrayList<>();
-
-        for (Direction dir : dirs) {
-            for (Position to = from.add(dir);
-                 board.isOnBoard(to);
-                 to = to.add(dir)) {
-                Piece toPiece = board.getPiece(to);
+    public abstract int generateMoves(Board board, int from, long targets,
+                                      int[] moves, int count);
 
-                if (toPiece != null) {
-                    if (toPiece.getColor() != color) {
-                        moves.add(new RegularMove(from, to));
-                    }
+    /**
+     * Gets the possible moves for the piece from the specified position.
+     * A promotion is included once, as a move whose piece type can be set.
+     *
+     * @param board The chessboard.
+     * @param from The position of the piece.
+     * @return A list of possible moves.
+     */
+    public List<Move> getMoves(@NonNull Board board, @NonNull Position from) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(board, from.square(), -1L, moves, 0);
+        List<Move> moveList = new ArrayList<>(count);
 
-                    break;
-                }
+        for (int i = 0; i < count; i++) {
+            PieceType promotionPieceType = PackedMove.getPromotionPieceType(moves[i]);
 
-                moves.add(new RegularMove(from, to));
+            if (promotionPieceType == null || promotionPieceType == PieceType.QUEEN) {
+                moveList.add(PackedMove.toMove(moves[i]));
             }
         }
 
-        return moves;
+        return moveList;
     }
 
     /**
-     * Checks if the piece can capture the opponent's king from the specified position.
+     * Adds a regular move from the square to every target square to the buffer.
      *
-     * @param board The chessboard.
-     * @param from The position of the piece.
-     * @return True if the piece can capture the opponent's king, otherwise false.
+     * @param from The square of the piece.
+     * @param targets The bitboard of the target squares.
+     * @param moves The move buffer.
+     * @param count The number of moves already in the buffer.
+     * @return The number of moves in the buffer after adding.
      */
-    public boolean canCaptureKing(@NonNull Board board, @NonNull Position from) {
-        return getMoves(board, from).stream()
-            .anyMatch(move -> {
-                Piece piece = board.getPiece(move.getTo());
-                return piece != null && piece.getType() == PieceType.KING;
-            });
-    }
+    protected static int addMoves(int from, long targets, int[] moves, int count) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves[count++] = PackedMove.encode(from, to, PackedMove.NORMAL);
+        }
 
-    /** Creates a deep copy of the piece. */
-    public abstract Piece makeCopy();
+        return count;
+    }
 }
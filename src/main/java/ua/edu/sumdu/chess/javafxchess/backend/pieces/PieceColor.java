@@ -2,5 +2,10 @@ package ua.edu.sumdu.chess.javafxchess.backend.pieces;
 
 public enum PieceColor {
     WHITE,
-    BLACK
+    BLACK;
+
+    /** Gets the color of the opponent's pieces. */
+    public PieceColor getOpposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
 }
@@ -0,0 +1,473 @@
+package ua.edu.sumdu.chess.javafxchess.backend.uci;
+
+import eventemitter.EventEmitter;
+import lombok.Getter;
+import lombok.NonNull;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Represents a connection to a UCI engine process. Commands are written
+ * to the engine's input, and a dedicated reader thread parses the engine's
+ * output as it arrives and completes the futures waiting for it, so no
+ * thread is parked on a pipe read while waiting for the engine.
+ * Futures are completed on the reader thread.
+ */
+public class UciClient {
+    private final Process process;
+    private final BufferedWriter writer;
+    private final Object lock = new Object();
+    private final CompletableFuture<Void> uciOk = new CompletableFuture<>();
+    private final Deque<CompletableFuture<Void>> readyRequests = new ArrayDeque<>();
+    private final EventEmitter<UciInfo> infoEventEmitter = new EventEmitter<>();
+    private CompletableFuture<UciSearchResult> search;
+    private UciInfo lastInfo;
+    private boolean isClosed;
+    /** The default values of the options the engine reported before {@code uciok}. */
+    private final Map<String, String> defaultOptions = new ConcurrentHashMap<>();
+    private final Set<String> changedOptions = new HashSet<>();
+    /** The name the engine reported with {@code id name}, or null before {@code uciok}. */
+    @Getter
+    private volatile String engineName;
+
+    /**
+     * Constructs a UciClient for a started engine process
+     * and starts reading the engine's output.
+     *
+     * @param process The engine process.
+     */
+    public UciClient(@NonNull Process process) {
+        this.process = process;
+        this.writer = new BufferedWriter(
+            new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII)
+        );
+        Thread readerThread = new Thread(this::readOutput, "uci-reader-" + process.pid());
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Starts the engine at the specified path and connects to it.
+     *
+     * @param executable The path of the engine executable.
+     * @return The client connected to the engine.
+     * @throws IOException If the engine cannot be started.
+     */
+    public static UciClient start(@NonNull String executable) throws IOException {
+        return new UciClient(new ProcessBuilder(executable).start());
+    }
+
+    /**
+     * Switches the engine to UCI mode.
+     *
+     * @return A future completed when the engine replies with {@code uciok}.
+     */
+    public CompletableFuture<Void> uci() {
+        send("uci");
+        return uciOk;
+    }
+
+    /**
+     * Synchronizes with the engine, which replies once it has processed
+     * all commands sent before, e.g. after setting options.
+     *
+     * @return A future completed when the engine replies with {@code readyok}.
+     */
+    public CompletableFuture<Void> isReady() {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+
+        synchronized (lock) {
+            if (isClosed) {
+                return CompletableFuture.failedFuture(new IOException("Engine is closed"));
+            }
+
+            readyRequests.add(ready);
+            send("isready");
+        }
+
+        return ready;
+    }
+
+    /**
+     * Sets an option of the engine.
+     *
+     * @param name The name of the option.
+     * @param value The value of the option.
+     */
+    public void setOption(@NonNull String name, @NonNull String value) {
+        synchronized (lock) {
+            changedOptions.add(name);
+            send("setoption name " + name + " value " + value);
+        }
+    }
+
+    /**
+     * Resets the options set through {@link #setOption} to the default
+     * values the engine reported. Options without a default are left as they are.
+     */
+    public void resetOptions() {
+        synchronized (lock) {
+            for (String name : changedOptions) {
+                String defaultValue = defaultOptions.get(name);
+
+                if (defaultValue != null) {
+                    send("setoption name " + name + " value " + defaultValue);
+                }
+            }
+
+            changedOptions.clear();
+        }
+    }
+
+    /**
+     * Sets the position to search, e.g. {@code fen <fen>}
+     * or {@code startpos moves e2e4}.
+     *
+     * @param position The arguments of the {@code position} command.
+     */
+    public void position(@NonNull String position) {
+        send("position " + position);
+    }
+
+    /**
+     * Sets the position of the board as its starting position and the moves
+     * made since then, e.g. {@code startpos moves e2e4 e7e5}, so that
+     * the engine sees the game history and can detect repetitions.
+     * If the starting position is unknown, only the current position is sent.
+     *
+     * @param board The chess board.
+     */
+    public void position(@NonNull Board board) {
+        position(toPositionArguments(board));
+    }
+
+    /**
+     * Gets the arguments of the {@code position} command for the board.
+     *
+     * @param board The chess board.
+     * @return The starting position and the made moves in long algebraic notation.
+     */
+    public static String toPositionArguments(@NonNull Board board) {
+        String startFEN = board.getStartFEN();
+
+        if (startFEN == null) {
+            return "fen " + board.getFEN();
+        }
+
+        StringBuilder arguments = new StringBuilder(16 + 6 * board.getPly());
+        arguments.append(startFEN.equals(Board.START_FEN) ? "startpos" : "fen " + startFEN);
+
+        if (board.getPly() > 0) {
+            arguments.append(" moves");
+
+            for (int i = 0; i < board.getPly(); i++) {
+                arguments.append(' ').append(PackedMove.toString(board.getMadeMove(i)));
+            }
+        }
+
+        return arguments.toString();
+    }
+
+    /**
+     * Starts a search of the current position. Only one search
+     * can run at a time.
+     *
+     * @param arguments The arguments of the {@code go} command,
+     * e.g. {@code movetime 1000}.
+     * @return A future completed when the engine replies with {@code bestmove}.
+     * @throws IllegalStateException If a search is already running.
+     */
+    public CompletableFuture<UciSearchResult> go(@NonNull String arguments) {
+        CompletableFuture<UciSearchResult> result = new CompletableFuture<>();
+
+        synchronized (lock) {
+            if (isClosed) {
+                return CompletableFuture.failedFuture(new IOException("Engine is closed"));
+            }
+
+            if (search != null) {
+                throw new IllegalStateException("A search is already running");
+            }
+
+            search = result;
+            lastInfo = null;
+            send("go " + arguments);
+        }
+
+        return result;
+    }
+
+    /**
+     * Tells the engine that the opponent played the expected move
+     * of the running {@code go ponder} search, which continues
+     * as a normal search and completes its future as usual.
+     */
+    public void ponderHit() {
+        synchronized (lock) {
+            if (search != null && !isClosed) {
+                send("ponderhit");
+            }
+        }
+    }
+
+    /**
+     * Stops the running search, if any. The engine still replies with
+     * {@code bestmove}, which completes the future of the search.
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (search != null && !isClosed) {
+                send("stop");
+            }
+        }
+    }
+
+    /**
+     * Stops the running search, if any, and waits for its best move,
+     * after which a new search can be started.
+     *
+     * @return A future completed when no search is running.
+     */
+    public CompletableFuture<Void> stopSearch() {
+        CompletableFuture<UciSearchResult> running;
+
+        synchronized (lock) {
+            running = search;
+            stop();
+        }
+
+        if (running == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return running.handle((result, ex) -> null);
+    }
+
+    /**
+     * Checks if a search is running.
+     *
+     * @return True if the engine has not replied to the last {@code go} yet.
+     */
+    public boolean isSearching() {
+        synchronized (lock) {
+            return search != null;
+        }
+    }
+
+    /**
+     * Checks if the engine process is running and the connection is open.
+     *
+     * @return True if the engine can accept commands, otherwise false.
+     */
+    public boolean isAlive() {
+        synchronized (lock) {
+            return !isClosed && process.isAlive();
+        }
+    }
+
+    /**
+     * Sends any other command to the engine, e.g. {@code ucinewgame}.
+     *
+     * @param command The command to send.
+     */
+    public void send(@NonNull String command) {
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+
+            try {
+                writer.write(command);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+    }
+
+    /**
+     * Quits the engine. A running search is cancelled
+     * and the process is destroyed if it does not exit by itself.
+     */
+    public void quit() {
+        CompletableFuture<UciSearchResult> running;
+
+        synchronized (lock) {
+            running = search;
+            search = null;
+            send("quit");
+        }
+
+        if (running != null) {
+            running.cancel(false);
+        }
+
+        close(new IOException("Engine has quit"));
+        process.onExit().orTimeout(1, TimeUnit.SECONDS)
+            .exceptionally(ex -> {
+                process.destroyForcibly();
+                return null;
+            });
+    }
+
+    /** Registers a callback for the search information sent by the engine. */
+    public void onInfo(@NonNull Consumer<UciInfo> c) {
+        infoEventEmitter.addConsumer(c);
+    }
+
+    /**
+     * Reads the engine's output line by line until the engine exits,
+     * then fails everything still waiting for a reply.
+     */
+    private void readOutput() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                handleLine(line);
+            }
+
+            close(new IOException("Engine has exited"));
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    /** Dispatches a line of the engine's output by its first token. */
+    private void handleLine(String line) {
+        if (line.startsWith("info ")) {
+            UciInfo info = UciInfo.parse(line);
+
+            if (info != null) {
+                // lines about the current move carry no principal variation
+                if (!info.getPv().isEmpty()) {
+                    synchronized (lock) {
+                        lastInfo = info;
+                    }
+                }
+                infoEventEmitter.trigger(info);
+            }
+        } else if (line.startsWith("bestmove")) {
+            handleBestMove(line);
+        } else if (line.equals("readyok")) {
+            CompletableFuture<Void> ready;
+
+            synchronized (lock) {
+                ready = readyRequests.poll();
+            }
+
+            if (ready != null) {
+                ready.complete(null);
+            }
+        } else if (line.equals("uciok")) {
+            uciOk.complete(null);
+        } else if (line.startsWith("option name ")) {
+            handleOption(line);
+        } else if (line.startsWith("id name ")) {
+            engineName = line.substring("id name ".length());
+        }
+    }
+
+    /**
+     * Remembers the default value of an option, e.g.
+     * {@code option name Skill Level type spin default 20 min 0 max 20}.
+     * Buttons and options with an empty default are skipped.
+     */
+    private void handleOption(String line) {
+        int typeIndex = line.indexOf(" type ");
+        int defaultIndex = line.indexOf(" default ");
+
+        if (typeIndex != -1 && defaultIndex > typeIndex) {
+            String name = line.substring("option name ".length(), typeIndex);
+            String rest = line.substring(defaultIndex + " default ".length());
+            int end = rest.length();
+
+            for (String keyword : new String[] { " min ", " max ", " var " }) {
+                int index = rest.indexOf(keyword);
+                end = index == -1 ? end : Math.min(end, index);
+            }
+
+            String defaultValue = rest.substring(0, end).trim();
+
+            if (!defaultValue.isEmpty() && !defaultValue.equals("<empty>")) {
+                defaultOptions.put(name, defaultValue);
+            }
+        }
+    }
+
+    /**
+     * Completes the running search with the {@code bestmove} line,
+     * or fails it if the line has no move, e.g. {@code bestmove (none)}
+     * in a position without legal moves.
+     */
+    private void handleBestMove(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        CompletableFuture<UciSearchResult> result;
+        UciInfo info;
+
+        synchronized (lock) {
+            result = search;
+            info = lastInfo;
+            search = null;
+        }
+
+        if (result == null) {
+            return;
+        }
+
+        if (tokens.length < 2 || tokens[1].equals("(none)")) {
+            result.completeExceptionally(new IOException("Malformed bestmove: " + line));
+            return;
+        }
+
+        String ponderMove = tokens.length >= 4 && tokens[2].equals("ponder")
+            ? tokens[3]
+            : null;
+        result.complete(new UciSearchResult(tokens[1], ponderMove, info));
+    }
+
+    /** Closes the connection and fails everything waiting for a reply. */
+    private void close(IOException cause) {
+        CompletableFuture<UciSearchResult> running;
+        Deque<CompletableFuture<Void>> pending;
+
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+
+            isClosed = true;
+            running = search;
+            search = null;
+            pending = new ArrayDeque<>(readyRequests);
+            readyRequests.clear();
+        }
+
+        uciOk.completeExceptionally(cause);
+        pending.forEach(ready -> ready.completeExceptionally(cause));
+
+        if (running != null) {
+            running.completeExceptionally(cause);
+        }
+
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // the engine has already closed its input
+        }
+    }
+}
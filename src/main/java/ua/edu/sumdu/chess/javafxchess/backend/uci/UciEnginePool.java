@@ -0,0 +1,303 @@
+package ua.edu.sumdu.chess.javafxchess.backend.uci;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a bounded pool of started UCI engine processes.
+ * Games lease an engine, which has already answered the UCI handshake,
+ * and return it when they end, so the process startup is not paid
+ * for every game. Engines are checked with {@code isready} when leased
+ * and returned, and engines that fail the check are replaced.
+ */
+public class UciEnginePool {
+    /** The time an engine has to answer a handshake or a health check, in seconds. */
+    private static final int RESPONSE_TIMEOUT = 5;
+
+    private final String executable;
+    /** The maximum number of engine processes, leased and idle. */
+    @Getter
+    private final int maxSize;
+    private final Object lock = new Object();
+    private final Deque<UciClient> idleClients = new ArrayDeque<>();
+    private final Deque<CompletableFuture<UciClient>> waiters = new ArrayDeque<>();
+    private int size;
+    private boolean isClosed;
+
+    /**
+     * Constructs a UciEnginePool. No engine is started until
+     * the pool is warmed up or an engine is leased.
+     *
+     * @param executable The path of the engine executable.
+     * @param maxSize The maximum number of engine processes, at least 1.
+     */
+    public UciEnginePool(@NonNull String executable, int maxSize) {
+        this.executable = executable;
+        this.maxSize = Math.max(maxSize, 1);
+    }
+
+    /**
+     * Starts engines in the background until the pool
+     * has the specified number of engines.
+     *
+     * @param count The number of engines to have, at most {@link #maxSize}.
+     */
+    public void warmUp(int count) {
+        synchronized (lock) {
+            while (!isClosed && size < Math.min(count, maxSize)) {
+                size++;
+                startClient().whenComplete((client, ex) -> {
+                    if (client != null) {
+                        returnClient(client);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Leases an engine that is ready for a new game. An idle engine
+     * is checked first, then a new engine is started if the pool
+     * is not full, otherwise the lease waits for a returned engine.
+     *
+     * @return A future completed with the leased engine.
+     */
+    public CompletableFuture<UciClient> lease() {
+        CompletableFuture<UciClient> lease = new CompletableFuture<>();
+        lease(lease);
+        return lease;
+    }
+
+    /**
+     * Leases an engine that is ready for a new game, waiting at most
+     * the specified time. A lease that times out stops waiting
+     * for a returned engine, and an engine that becomes ready
+     * after the timeout goes back to the pool.
+     *
+     * @param timeout The time to wait for an engine.
+     * @param unit The unit of the timeout.
+     * @return A future completed with the leased engine, or completed
+     * exceptionally with a TimeoutException.
+     */
+    public CompletableFuture<UciClient> lease(long timeout, @NonNull TimeUnit unit) {
+        CompletableFuture<UciClient> lease = new CompletableFuture<>();
+        lease.orTimeout(timeout, unit)
+            .whenComplete((client, ex) -> {
+                if (ex != null) {
+                    synchronized (lock) {
+                        waiters.remove(lease);
+                    }
+                }
+            });
+        lease(lease);
+        return lease;
+    }
+
+    /** Completes the lease with an idle, a new or a returned engine. */
+    private void lease(CompletableFuture<UciClient> lease) {
+        UciClient idleClient;
+
+        synchronized (lock) {
+            if (lease.isDone()) {
+                return;
+            }
+
+            if (isClosed) {
+                lease.completeExceptionally(new IOException("Engine pool is closed"));
+                return;
+            }
+
+            idleClient = idleClients.poll();
+
+            if (idleClient == null) {
+                if (size < maxSize) {
+                    size++;
+                    startClient().whenComplete((client, ex) -> {
+                        if (ex == null) {
+                            handOver(lease, client);
+                        } else {
+                            lease.completeExceptionally(ex);
+                        }
+                    });
+                } else {
+                    waiters.add(lease);
+                }
+
+                return;
+            }
+        }
+
+        checkHealth(idleClient).whenComplete((v, ex) -> {
+            if (ex == null) {
+                handOver(lease, idleClient);
+            } else {
+                discard(idleClient);
+                lease(lease);
+            }
+        });
+    }
+
+    /** Completes the lease with the engine, or returns the engine if the lease has timed out. */
+    private void handOver(CompletableFuture<UciClient> lease, UciClient client) {
+        if (!lease.complete(client)) {
+            returnClient(client);
+        }
+    }
+
+    /**
+     * Returns a leased engine to the pool. A running search is stopped,
+     * the engine is told that a new game starts and its options are reset,
+     * and the engine is replaced if it does not answer.
+     *
+     * @param client The leased engine.
+     */
+    public void release(@NonNull UciClient client) {
+        client.stopSearch()
+            .thenCompose(v -> {
+                client.send("ucinewgame");
+                client.resetOptions();
+                return checkHealth(client);
+            })
+            .whenComplete((v, ex) -> {
+                if (ex == null) {
+                    returnClient(client);
+                } else {
+                    discard(client);
+                }
+            });
+    }
+
+    /** Quits all idle engines and fails the waiting leases. Leased engines quit when returned. */
+    public void close() {
+        List<UciClient> clients;
+        List<CompletableFuture<UciClient>> pending;
+
+        synchronized (lock) {
+            isClosed = true;
+            clients = new ArrayList<>(idleClients);
+            pending = new ArrayList<>(waiters);
+            size -= idleClients.size();
+            idleClients.clear();
+            waiters.clear();
+        }
+
+        clients.forEach(UciClient::quit);
+        pending.forEach(waiter ->
+            waiter.completeExceptionally(new IOException("Engine pool is closed")));
+    }
+
+    /**
+     * Gets the number of idle engines.
+     *
+     * @return The number of engines ready to be leased.
+     */
+    public int getIdleCount() {
+        synchronized (lock) {
+            return idleClients.size();
+        }
+    }
+
+    /**
+     * Starts an engine and completes the UCI handshake. The caller
+     * has already counted the engine in the pool size.
+     */
+    private CompletableFuture<UciClient> startClient() {
+        UciClient client;
+
+        try {
+            client = UciClient.start(executable);
+        } catch (IOException e) {
+            synchronized (lock) {
+                size--;
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.uci()
+            .thenCompose(v -> client.isReady())
+            .orTimeout(RESPONSE_TIMEOUT, TimeUnit.SECONDS)
+            .handle((v, ex) -> {
+                if (ex != null) {
+                    discard(client);
+                    throw new IllegalStateException("Engine did not complete the handshake", ex);
+                }
+
+                return client;
+            });
+    }
+
+    /** Checks that the engine process is running and answers {@code isready}. */
+    private CompletableFuture<Void> checkHealth(UciClient client) {
+        if (!client.isAlive()) {
+            return CompletableFuture.failedFuture(new IOException("Engine is not running"));
+        }
+
+        return client.isReady().orTimeout(RESPONSE_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gives a healthy engine to the first waiting lease, or makes it idle.
+     * Leases that have timed out in the meantime are skipped.
+     */
+    private void returnClient(UciClient client) {
+        while (true) {
+            CompletableFuture<UciClient> waiter;
+
+            synchronized (lock) {
+                if (isClosed) {
+                    size--;
+                    break;
+                }
+
+                waiter = waiters.poll();
+
+                if (waiter == null) {
+                    idleClients.add(client);
+                    return;
+                }
+            }
+
+            if (waiter.complete(client)) {
+                return;
+            }
+        }
+
+        client.quit();
+    }
+
+    /**
+     * Quits an engine that failed a check and frees its place in the pool,
+     * starting a replacement if a lease is waiting.
+     */
+    private void discard(UciClient client) {
+        client.quit();
+        CompletableFuture<UciClient> waiter;
+
+        synchronized (lock) {
+            size--;
+            waiter = isClosed ? null : waiters.poll();
+
+            if (waiter != null) {
+                size++;
+            }
+        }
+
+        if (waiter != null) {
+            startClient().whenComplete((replacement, ex) -> {
+                if (ex == null) {
+                    handOver(waiter, replacement);
+                } else {
+                    waiter.completeExceptionally(ex);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ua.edu.sumdu.chess.javafxchess.backend.uci;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the search information a UCI engine reports
+ * in an {@code info} line while it is thinking.
+ */
+@Getter
+public class UciInfo {
+    private int depth;
+    private long nodes;
+    /** The score in centipawns, or the number of moves to mate if {@link #mate} is set. */
+    private int score;
+    private boolean mate;
+    private List<String> pv = Collections.emptyList();
+
+    /** Constructs an empty info, filled in by {@link #parse}. */
+    private UciInfo() { }
+
+    /**
+     * Parses an {@code info} line. Unknown fields are skipped.
+     *
+     * @param line The line sent by the engine.
+     * @return The parsed info, or null if the line carries no search
+     * information, such as {@code info string}.
+     */
+    public static UciInfo parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        UciInfo info = new UciInfo();
+        boolean hasSearchInfo = false;
+
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "string" -> {
+                    return null;
+                }
+                case "depth" -> {
+                    info.depth = parseInt(tokens, ++i);
+                    hasSearchInfo = true;
+                }
+                case "nodes" -> info.nodes = parseLong(tokens, ++i);
+                case "score" -> {
+                    info.mate = i + 1 < tokens.length && tokens[i + 1].equals("mate");
+                    i += 2;
+                    info.score = parseInt(tokens, i);
+                    hasSearchInfo = true;
+                }
+                case "pv" -> {
+                    info.pv = new ArrayList<>(List.of(tokens).subList(i + 1, tokens.length));
+                    i = tokens.length;
+                }
+                case "seldepth", "multipv", "nps", "time", "hashfull", "tbhits",
+                     "cpuload", "currmove", "currmovenumber", "sbhits" -> i++;
+                default -> { }
+            }
+        }
+
+        return hasSearchInfo ? info : null;
+    }
+
+    /** Parses the token at the index as an int, 0 if it is missing or malformed. */
+    private static int parseInt(String[] tokens, int index) {
+        return (int) parseLong(tokens, index);
+    }
+
+    /** Parses the token at the index as a long, 0 if it is missing or malformed. */
+    private static long parseLong(String[] tokens, int index) {
+        try {
+            return index < tokens.length ? Long.parseLong(tokens[index]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
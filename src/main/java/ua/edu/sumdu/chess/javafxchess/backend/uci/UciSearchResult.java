@@ -0,0 +1,28 @@
+package ua.edu.sumdu.chess.javafxchess.backend.uci;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Represents the result of a UCI search: the {@code bestmove} line
+ * and the last search information reported before it.
+ */
+@Getter
+public class UciSearchResult {
+    private final String bestMove;
+    private final String ponderMove;
+    private final UciInfo info;
+
+    /**
+     * Constructs a UciSearchResult.
+     *
+     * @param bestMove The best move in long algebraic notation.
+     * @param ponderMove The expected reply to ponder on, or null if none.
+     * @param info The last search information, or null if none was reported.
+     */
+    public UciSearchResult(@NonNull String bestMove, String ponderMove, UciInfo info) {
+        this.bestMove = bestMove;
+        this.ponderMove = ponderMove;
+        this.info = info;
+    }
+}
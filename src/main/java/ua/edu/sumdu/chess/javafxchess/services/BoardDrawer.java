@@ -35,7 +35,7 @@ public class BoardDrawer {
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
                 StackPane square = squares[i][j];
-                Position position = new Position(i, j);
+                Position position = Position.of(i, j);
                 Piece piece = board.getPiece(position);
                 clearSquare(square);
                 drawPiece(square, piece);
@@ -0,0 +1,149 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import org.junit.jupiter.api.Test;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the detection of insufficient material and the incremental
+ * bishop counts it relies on as moves are made and taken back.
+ */
+class InsufficientMaterialTest {
+    @Test
+    void kingsOnly() {
+        assertTrue(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/8 w - - 0 1"));
+    }
+
+    @Test
+    void singleMinorPiece() {
+        assertTrue(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/2B5 w - - 0 1"));
+        assertTrue(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/1n6 w - - 0 1"));
+    }
+
+    @Test
+    void bishopsOnSquaresOfTheSameColor() {
+        assertTrue(isInsufficientMaterial("5b2/8/4k3/8/8/4K3/8/2B5 w - - 0 1"));
+        assertTrue(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/B1B1B3 w - - 0 1"));
+    }
+
+    @Test
+    void bishopsOnSquaresOfDifferentColors() {
+        assertFalse(isInsufficientMaterial("2b5/8/4k3/8/8/4K3/8/2B5 w - - 0 1"));
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/2BB4 w - - 0 1"));
+    }
+
+    @Test
+    void knightAndBishop() {
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/1NB5 w - - 0 1"));
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/1N3n2 w - - 0 1"));
+    }
+
+    @Test
+    void pawnsRooksAndQueens() {
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/P7/8 w - - 0 1"));
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/R7 w - - 0 1"));
+        assertFalse(isInsufficientMaterial("8/8/4k3/8/8/4K3/8/q7 w - - 0 1"));
+    }
+
+    @Test
+    void captureAndUnmake() {
+        Board board = Board.fromFEN("7k/8/8/8/4b3/3K4/8/2B5 w - - 0 1");
+
+        assertFalse(board.isInsufficientMaterial());
+        board.makeMove(findMove(board, "d3e4"));
+        assertTrue(board.isInsufficientMaterial());
+        board.unmakeMove();
+        assertFalse(board.isInsufficientMaterial());
+    }
+
+    @Test
+    void promotionCountsTheBishopOnItsSquare() {
+        Board board = Board.fromFEN("3b4/4P3/8/8/8/8/8/K6k w - - 0 1");
+
+        assertFalse(board.isInsufficientMaterial());
+
+        // e8 is a light square, the bishop on d8 stands on a dark one
+        board.makeMove(findMove(board, "e7e8b"));
+        assertFalse(board.isInsufficientMaterial());
+        board.unmakeMove();
+
+        board.makeMove(findMove(board, "e7d8b"));
+        assertTrue(board.isInsufficientMaterial());
+        board.unmakeMove();
+
+        board.makeMove(findMove(board, "e7d8n"));
+        assertTrue(board.isInsufficientMaterial());
+        board.unmakeMove();
+        assertFalse(board.isInsufficientMaterial());
+    }
+
+    @Test
+    void promotionToBishopOfTheSameColor() {
+        Board board = Board.fromFEN("8/4P3/8/8/8/7b/8/K6k w - - 0 1");
+
+        board.makeMove(findMove(board, "e7e8b"));
+        assertTrue(board.isInsufficientMaterial());
+        board.unmakeMove();
+        assertFalse(board.isInsufficientMaterial());
+    }
+
+    @Test
+    void incrementalCountsMatchParsedPositions() {
+        String[] fens = {
+            "2b5/8/4k3/8/8/4K3/8/2B1N3 w - - 0 1",
+            "8/1P2k3/8/3b4/8/4K3/6p1/5B2 w - - 0 1",
+            "r3k3/8/8/2n5/8/8/8/1B2K2B b - - 0 1"
+        };
+
+        for (String fen : fens) {
+            assertMatchesParsedPosition(Board.fromFEN(fen), 3);
+        }
+    }
+
+    /**
+     * Checks in every position of the tree that the result from the
+     * incremental counts equals the result for the parsed FEN of the position.
+     */
+    private static void assertMatchesParsedPosition(Board board, int depth) {
+        String fen = board.getFEN();
+        assertEquals(Board.fromFEN(fen).isInsufficientMaterial(), board.isInsufficientMaterial(), fen);
+
+        if (depth > 0) {
+            PieceColor color = board.getSideToMove();
+            int[] moves = new int[Board.MAX_MOVES];
+            int count = board.generateLegalMoves(color, moves);
+
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                assertMatchesParsedPosition(board, depth - 1);
+                board.unmakeMove();
+            }
+        }
+
+        assertEquals(fen, board.getFEN());
+    }
+
+    /** Checks if the material of the position is insufficient. */
+    private static boolean isInsufficientMaterial(String fen) {
+        return Board.fromFEN(fen).isInsufficientMaterial();
+    }
+
+    /** Finds the legal move in long algebraic notation. */
+    private static int findMove(Board board, String move) {
+        for (PrimitiveIterator.OfInt it = board.legalMoveIterator(board.getSideToMove()); it.hasNext(); ) {
+            int packed = it.nextInt();
+
+            if (PackedMove.toString(packed).equals(move)) {
+                return packed;
+            }
+        }
+
+        throw new IllegalArgumentException("Illegal move " + move);
+    }
+}
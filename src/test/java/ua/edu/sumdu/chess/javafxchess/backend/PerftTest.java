@@ -0,0 +1,156 @@
+package ua.edu.sumdu.chess.javafxchess.backend;
+
+import org.junit.jupiter.api.Test;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies move generation by comparing perft results
+ * with the published reference values.
+ */
+class PerftTest {
+    private static final String START_POSITION
+        = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    void startPosition() {
+        assertPerft(START_POSITION, 20, 400, 8902, 197281, 4865609);
+    }
+
+    @Test
+    void kiwipete() {
+        assertPerft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            48, 2039, 97862, 4085603);
+    }
+
+    @Test
+    void enPassantPins() {
+        assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            14, 191, 2812, 43238, 674624);
+    }
+
+    @Test
+    void promotionsAndCastlingRights() {
+        assertPerft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            6, 264, 9467, 422333);
+    }
+
+    @Test
+    void promotionsWithCapture() {
+        assertPerft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            44, 1486, 62379, 2103487);
+    }
+
+    @Test
+    void middlegame() {
+        assertPerft("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            46, 2079, 89890, 3894594);
+    }
+
+    @Test
+    void enPassantCaptureGivesCheck() {
+        assertPerft("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+            15, 126, 1928, 13931);
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        Board board = Board.fromFEN(START_POSITION);
+        Map<String, Long> nodesByMove = board.divide(PieceColor.WHITE, 3);
+
+        assertEquals(20, nodesByMove.size());
+        assertEquals(600, nodesByMove.get("e2e4"));
+        assertEquals(8902, nodesByMove.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void fenRoundTrip() {
+        String[] fens = {
+            START_POSITION,
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1"
+        };
+
+        for (String fen : fens) {
+            assertEquals(fen, Board.fromFEN(fen).getFEN());
+        }
+
+        Board board = Board.fromFEN(START_POSITION);
+        board.perft(PieceColor.WHITE, 2);
+        assertEquals(START_POSITION, board.getFEN());
+    }
+
+    @Test
+    void legalMoveIteratorMatchesGenerator() {
+        String[] fens = {
+            START_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1"
+        };
+
+        for (String fen : fens) {
+            Board board = Board.fromFEN(fen);
+            assertIteratorMatchesGenerator(board, board.getSideToMove(), 3);
+        }
+    }
+
+    /**
+     * Checks that the legal move iterator yields the same moves as
+     * the legal move generator in every position of the tree.
+     */
+    private static void assertIteratorMatchesGenerator(Board board, PieceColor color, int depth) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateLegalMoves(color, moves);
+        int[] iterated = new int[Board.MAX_MOVES];
+        int iteratedCount = 0;
+
+        for (PrimitiveIterator.OfInt it = board.legalMoveIterator(color); it.hasNext(); ) {
+            iterated[iteratedCount++] = it.nextInt();
+        }
+
+        int[] expected = Arrays.copyOf(moves, count);
+        int[] actual = Arrays.copyOf(iterated, iteratedCount);
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual);
+        assertEquals(count > 0, board.hasAnyLegalMove(color));
+
+        if (depth > 1) {
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                assertIteratorMatchesGenerator(board, color.getOpposite(), depth - 1);
+                board.unmakeMove();
+            }
+        }
+    }
+
+    /**
+     * Checks the perft results of the position for every depth
+     * starting from 1 and reports the speed of the search.
+     */
+    private static void assertPerft(String fen, long... expectedNodes) {
+        Board board = Board.fromFEN(fen);
+        PieceColor color = board.getSideToMove();
+
+        for (int depth = 1; depth <= expectedNodes.length; depth++) {
+            long start = System.nanoTime();
+            long nodes = board.perft(color, depth);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+
+            assertEquals(expectedNodes[depth - 1], nodes,
+                () -> "perft mismatch for " + fen + ", divide: " + board.divide(color, 1));
+
+            System.out.printf("perft(%d) = %d, %.0f nodes/s: %s%n",
+                depth, nodes, nodes * 1e9 / elapsed, fen);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ua.edu.sumdu.chess.javafxchess.backend.book;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ua.edu.sumdu.chess.javafxchess.backend.Board;
+import ua.edu.sumdu.chess.javafxchess.backend.moves.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies Polyglot keys against the reference values
+ * of the format specification and book lookups.
+ */
+class PolyglotTest {
+    @Test
+    void referenceKeys() {
+        assertKey(0x463b96181691fc9cL);
+        assertKey(0x823c9b50fd114196L, "e2e4");
+        assertKey(0x0756b94461c50fb0L, "e2e4", "d7d5");
+        assertKey(0x662fafb965db29d4L, "e2e4", "d7d5", "e4e5");
+        assertKey(0x22a48b5a8e47ff78L, "e2e4", "d7d5", "e4e5", "f7f5");
+        assertKey(0x652a607ca3f242c1L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2");
+        assertKey(0x00fdd303c946bdd9L, "e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7");
+        assertKey(0x3c8123ea7b067637L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4");
+        assertKey(0x5c3f9b829b279560L, "a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3");
+    }
+
+    @Test
+    void castlingIsEncodedAsKingTakesRook() {
+        Board board = Board.fromFEN("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        int kingside = findMove(board, "e1g1");
+
+        assertEquals(0x0107, Polyglot.encodeMove(kingside));
+        assertEquals(kingside, Polyglot.decodeMove(board, 0x0107));
+    }
+
+    @Test
+    void bookLookup(@TempDir Path dir) throws IOException {
+        Board board = Board.fromFEN(Board.START_FEN);
+        long key = Polyglot.getKey(board);
+        ByteBuffer buffer = ByteBuffer.allocate(4 * PolyglotBook.ENTRY_SIZE);
+
+        putEntry(buffer, key - 1, findMove(board, "a2a3"), 10);
+        putEntry(buffer, key, findMove(board, "e2e4"), 5);
+        putEntry(buffer, key, findMove(board, "d2d4"), 7);
+        putEntry(buffer, key + 1, findMove(board, "g1f3"), 10);
+        Path path = dir.resolve("book.bin");
+        Files.write(path, buffer.array());
+
+        PolyglotBook book = new PolyglotBook(path);
+
+        assertEquals(2, book.getMoves(board).size());
+        assertEquals("d2d4", PackedMove.toString(book.getMove(board, BookSelection.BEST_WEIGHT)));
+        board.makeMove(findMove(board, "e2e4"));
+        assertEquals(PackedMove.NONE, book.getMove(board, BookSelection.WEIGHTED_RANDOM));
+    }
+
+    @Test
+    void bookBuiltFromPgn(@TempDir Path dir) throws IOException {
+        Path pgn = dir.resolve("games.pgn");
+        Files.writeString(pgn, """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 {best by test} e5 (1... c5 2. Nf3) 2. Nf3 $1 Nc6 3. Bb5 1-0
+
+            [Event "Two"]
+            [Result "1/2-1/2"]
+
+            1. e4 c5 2. Nf3 d6 1/2-1/2
+
+            [Event "Three"]
+            [Result "0-1"]
+
+            1.d4 d5 2.c4 0-1
+
+            [Event "Unfinished"]
+            [Result "*"]
+
+            1. a4 *
+            """);
+        Path output = dir.resolve("book.bin");
+
+        PolyglotBookBuilder builder = new PolyglotBookBuilder(8, 2, 2);
+        builder.build(List.of(pgn), output);
+        PolyglotBook book = new PolyglotBook(output);
+        Board board = Board.fromFEN(Board.START_FEN);
+        List<BookMove> moves = book.getMoves(board);
+
+        assertEquals(3, builder.getGameCount());
+        assertEquals(1, moves.size());
+        assertEquals("e2e4", PackedMove.toString(moves.get(0).getMove()));
+        assertEquals(3, moves.get(0).getWeight());
+
+        // the moves of the losing side are not in the book
+        board.makeMove(findMove(board, "e2e4"));
+        moves = book.getMoves(board);
+        assertEquals(1, moves.size());
+        assertEquals("c7c5", PackedMove.toString(moves.get(0).getMove()));
+        board.makeMove(findMove(board, "e7e5"));
+        assertEquals(1, book.getMoves(board).size());
+    }
+
+    /** Checks the key of the position after the moves from the starting position. */
+    private static void assertKey(long expectedKey, String... moves) {
+        Board board = Board.fromFEN(Board.START_FEN);
+
+        for (String move : moves) {
+            board.makeMove(findMove(board, move));
+        }
+
+        assertEquals(expectedKey, Polyglot.getKey(board), () -> board.getFEN());
+    }
+
+    /** Finds the legal move in long algebraic notation. */
+    private static int findMove(Board board, String notation) {
+        PrimitiveIterator.OfInt moves = board.legalMoveIterator(board.getSideToMove());
+
+        while (moves.hasNext()) {
+            int move = moves.nextInt();
+
+            if (PackedMove.toString(move).equals(notation)) {
+                return move;
+            }
+        }
+
+        throw new IllegalArgumentException("Illegal move " + notation);
+    }
+
+    private static void putEntry(ByteBuffer buffer, long key, int move, int weight) {
+        buffer.putLong(key).putShort((short) Polyglot.encodeMove(move))
+            .putShort((short) weight).putInt(0);
+    }
+}
@@ -0,0 +1,73 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import org.junit.jupiter.api.Test;
+import ua.edu.sumdu.chess.javafxchess.backend.GameClock;
+import ua.edu.sumdu.chess.javafxchess.backend.pieces.PieceColor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the soft and hard limits the time manager
+ * allocates from the game clock.
+ */
+class TimeManagerTest {
+    @Test
+    void suddenDeath() {
+        TimeManager timeManager = ofClock(60_000, 0, 0);
+
+        assertEquals(59_000 / 30, timeManager.getSoftLimit());
+        assertEquals(3 * (59_000 / 30), timeManager.getHardLimit());
+    }
+
+    @Test
+    void incrementIsMostlySpent() {
+        TimeManager timeManager = ofClock(60_000, 2000, 0);
+
+        assertEquals(59_000 / 30 + 1500, timeManager.getSoftLimit());
+        assertEquals(3 * (59_000 / 30 + 1500), timeManager.getHardLimit());
+    }
+
+    @Test
+    void movesToGoSpreadsTheTime() {
+        TimeManager timeManager = ofClock(60_000, 0, 10);
+
+        assertEquals(59_000 / 10, timeManager.getSoftLimit());
+        assertEquals(59_000 / 4, timeManager.getHardLimit());
+        assertEquals(59_000, ofClock(60_000, 0, 1).getSoftLimit());
+    }
+
+    @Test
+    void usesTheTimeOfTheSideToMove() {
+        GameClock clock = new GameClock(300_000, 10_000, 5000, 0, 0);
+
+        assertEquals(9000 / 30, TimeManager.ofClock(clock, PieceColor.BLACK).getSoftLimit());
+        assertEquals(299_000 / 30 + 3750, TimeManager.ofClock(clock, PieceColor.WHITE).getSoftLimit());
+    }
+
+    @Test
+    void limitsNeverExceedTheTimeLeft() {
+        long[] times = { 0, 1, 5, 10, 500, 1000, 1010, 1500, 5000, 60_000, 3_600_000 };
+        long[] increments = { 0, 100, 2000, 10_000, 60_000 };
+        int[] movesToGo = { 0, 1, 2, 10, 40 };
+
+        for (long time : times) {
+            for (long increment : increments) {
+                for (int moves : movesToGo) {
+                    TimeManager timeManager = ofClock(time, increment, moves);
+                    String clock = time + "+" + increment + " in " + moves;
+
+                    assertTrue(timeManager.getHardLimit() <= time, clock);
+                    assertTrue(timeManager.getSoftLimit() <= timeManager.getHardLimit(), clock);
+                    assertTrue(timeManager.getSoftLimit() >= Math.min(10, time), clock);
+                }
+            }
+        }
+    }
+
+    /** Creates the time manager for white with the same clock for both sides. */
+    private static TimeManager ofClock(long time, long increment, int movesToGo) {
+        return TimeManager.ofClock(
+            new GameClock(time, time, increment, increment, movesToGo), PieceColor.WHITE);
+    }
+}
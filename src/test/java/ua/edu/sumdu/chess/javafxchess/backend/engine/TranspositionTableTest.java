@@ -0,0 +1,122 @@
+package ua.edu.sumdu.chess.javafxchess.backend.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Verifies storing and probing entries of the transposition table
+ * and the choice of the entry a full bucket replaces.
+ */
+class TranspositionTableTest {
+    /** A position key, whose low bits choose the bucket. */
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+
+    @Test
+    void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 0x0ABC, -1234, 9, TranspositionTable.UPPER_BOUND);
+        long entry = table.probe(KEY);
+
+        assertEquals(0x0ABC, TranspositionTable.getMove(entry));
+        assertEquals(-1234, TranspositionTable.getScore(entry));
+        assertEquals(9, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.getBound(entry));
+        assertEquals(0, table.probe(KEY + 1));
+    }
+
+    @Test
+    void entryOfAnotherKeyInTheBucketIsRejected() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 0x0ABC, 50, 4, TranspositionTable.EXACT);
+
+        // the same low bits select the same bucket, but the key check fails
+        assertEquals(0, table.probe(sameBucket(1)));
+        assertEquals(0, table.probe(KEY ^ Long.MIN_VALUE));
+        assertNotEquals(0, table.probe(KEY));
+    }
+
+    @Test
+    void sameKeyKeepsDeeperBoundOfCurrentSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 0x0ABC, 50, 10, TranspositionTable.LOWER_BOUND);
+        table.store(KEY, 0x0DEF, 20, 2, TranspositionTable.UPPER_BOUND);
+
+        assertEquals(10, TranspositionTable.getDepth(table.probe(KEY)));
+
+        table.store(KEY, 0, 30, 2, TranspositionTable.EXACT);
+        long entry = table.probe(KEY);
+
+        assertEquals(2, TranspositionTable.getDepth(entry));
+        assertEquals(0x0ABC, TranspositionTable.getMove(entry));
+    }
+
+    @Test
+    void fullBucketReplacesShallowestEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] depths = { 5, 3, 7, 6 };
+
+        for (int i = 0; i < depths.length; i++) {
+            table.store(sameBucket(i), 1, 0, depths[i], TranspositionTable.EXACT);
+        }
+
+        table.store(sameBucket(4), 1, 0, 4, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(sameBucket(1)));
+        assertEquals(4, TranspositionTable.getDepth(table.probe(sameBucket(4))));
+
+        for (int i : new int[] { 0, 2, 3 }) {
+            assertEquals(depths[i], TranspositionTable.getDepth(table.probe(sameBucket(i))));
+        }
+    }
+
+    @Test
+    void fullBucketReplacesOldEntryFirst() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(sameBucket(0), 1, 0, 10, TranspositionTable.EXACT);
+        table.newSearch();
+
+        for (int i = 1; i < 4; i++) {
+            table.store(sameBucket(i), 1, 0, 3 + i, TranspositionTable.EXACT);
+        }
+
+        table.store(sameBucket(4), 1, 0, 1, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(sameBucket(0)));
+
+        for (int i = 1; i <= 4; i++) {
+            assertNotEquals(0, table.probe(sameBucket(i)));
+        }
+    }
+
+    @Test
+    void alwaysPolicyReplacesFirstEntry() {
+        TranspositionTable table = new TranspositionTable(1,
+            TranspositionTable.ReplacementPolicy.ALWAYS);
+
+        for (int i = 0; i < 4; i++) {
+            table.store(sameBucket(i), 1, 0, 10 + i, TranspositionTable.EXACT);
+        }
+
+        table.store(sameBucket(4), 1, 0, 1, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(sameBucket(0)));
+        assertEquals(1, TranspositionTable.getDepth(table.probe(sameBucket(4))));
+    }
+
+    @Test
+    void clearRemovesEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 1, 0, 1, TranspositionTable.EXACT);
+        table.clear();
+
+        assertEquals(0, table.probe(KEY));
+        assertEquals(0, table.getHashfull());
+    }
+
+    /** Gets a key that differs from {@link #KEY} in the high bits only. */
+    private static long sameBucket(int index) {
+        return KEY + ((long) index << 40);
+    }
+}
@@ -0,0 +1,180 @@
+package ua.edu.sumdu.chess.javafxchess.backend.uci;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the parsing of engine output by feeding canned lines
+ * to a UciClient connected to a fake engine process.
+ */
+class UciClientTest {
+    private final FakeProcess process = new FakeProcess();
+    private final UciClient client = new UciClient(process);
+
+    @AfterEach
+    void closeEngine() throws IOException {
+        process.engineOutput.close();
+    }
+
+    @Test
+    void bestMoveWithLastPrincipalVariation() throws Exception {
+        CompletableFuture<UciSearchResult> search = client.go("movetime 100");
+        reply("info depth 10 seldepth 14 score cp 25 nodes 1000 pv e2e4 e7e5 g1f3",
+            "info depth 10 currmove d2d4 currmovenumber 2",
+            "bestmove e2e4 ponder e7e5");
+        UciSearchResult result = search.get(1, TimeUnit.SECONDS);
+
+        assertEquals("e2e4", result.getBestMove());
+        assertEquals("e7e5", result.getPonderMove());
+        assertEquals(List.of("e2e4", "e7e5", "g1f3"), result.getInfo().getPv());
+        assertEquals(25, result.getInfo().getScore());
+        assertTrue(process.getCommands().contains("go movetime 100"));
+    }
+
+    @Test
+    void malformedBestMoveFailsSearch() {
+        CompletableFuture<UciSearchResult> search = client.go("movetime 100");
+        reply("bestmove");
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> search.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertFalse(client.isSearching());
+    }
+
+    @Test
+    void noBestMoveFailsSearch() {
+        CompletableFuture<UciSearchResult> search = client.go("movetime 100");
+        reply("info depth 0 score mate 0", "bestmove (none)");
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> search.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+    @Test
+    void exitedEngineFailsSearch() throws IOException {
+        CompletableFuture<UciSearchResult> search = client.go("infinite");
+        process.engineOutput.close();
+
+        assertThrows(ExecutionException.class, () -> search.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void resetOptionsRestoresReportedDefaults() throws Exception {
+        CompletableFuture<Void> uciOk = client.uci();
+        reply("id name Fake 1.0",
+            "option name Skill Level type spin default 20 min 0 max 20",
+            "option name Debug Log File type string default <empty>",
+            "option name Clear Hash type button",
+            "uciok");
+        uciOk.get(1, TimeUnit.SECONDS);
+
+        client.setOption("Skill Level", "5");
+        client.setOption("Debug Log File", "log.txt");
+        client.resetOptions();
+        String commands = process.getCommands();
+
+        assertEquals("Fake 1.0", client.getEngineName());
+        assertTrue(commands.endsWith("setoption name Skill Level value 20\n"));
+        assertEquals(1, commands.split("name Debug Log File", -1).length - 1);
+    }
+
+    @Test
+    void parseInfo() {
+        UciInfo info = UciInfo.parse("info depth 5 seldepth 7 score mate -3 nodes 123 nps 1000 pv a7a8q");
+
+        assertEquals(5, info.getDepth());
+        assertEquals(123, info.getNodes());
+        assertTrue(info.isMate());
+        assertEquals(-3, info.getScore());
+        assertEquals(List.of("a7a8q"), info.getPv());
+        assertTrue(UciInfo.parse("info depth 3 currmove e2e4 currmovenumber 1").getPv().isEmpty());
+        assertNull(UciInfo.parse("info string NNUE evaluation enabled"));
+        assertNull(UciInfo.parse("info nodes 10"));
+    }
+
+    /** Sends the lines as the engine's output. */
+    private void reply(String... lines) {
+        try {
+            for (String line : lines) {
+                process.engineOutput.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            process.engineOutput.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Represents an engine process whose output is written by the test. */
+    private static class FakeProcess extends Process {
+        private final PipedOutputStream engineOutput = new PipedOutputStream();
+        private final PipedInputStream clientInput;
+        private final ByteArrayOutputStream engineInput = new ByteArrayOutputStream();
+
+        FakeProcess() {
+            try {
+                clientInput = new PipedInputStream(engineOutput);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /** Gets the commands the client has sent, one per line. */
+        String getCommands() {
+            return engineInput.toString(StandardCharsets.US_ASCII).replace("\r\n", "\n");
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return engineInput;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return clientInput;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() { }
+
+        @Override
+        public long pid() {
+            return 0;
+        }
+    }
+}